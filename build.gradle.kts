@@ -1,6 +1,10 @@
+import groovy.json.JsonOutput
+import groovy.json.JsonSlurper
+
 plugins {
     java
     id("com.gradleup.shadow") version "8.3.5"
+    id("me.champeau.jmh") version "0.7.2"
 }
 
 group = "com.underwaterdepth"
@@ -14,8 +18,45 @@ repositories {
 dependencies {
     compileOnly(files("libs/HytaleServer.jar"))
     compileOnly(files("libs/MultipleHUD-1.0.4.jar"))
+
+    // Benchmarks run outside the server, so the server jar (and its Gson) is needed at runtime
+    jmh(files("libs/HytaleServer.jar"))
+
+    // Tests drive the depth pass without a server, but still load its classes
+    testImplementation(files("libs/HytaleServer.jar"))
+    testImplementation(platform("org.junit:junit-bom:5.11.4"))
+    testImplementation("org.junit.jupiter:junit-jupiter")
+    testRuntimeOnly("org.junit.platform:junit-platform-launcher")
+}
+
+// Benchmarks: ./gradlew jmh, then ./gradlew jmhCompare to check against the baseline
+jmh {
+    warmupIterations.set(3)
+    iterations.set(5)
+    fork.set(1)
+    resultFormat.set("JSON")
+    resultsFile.set(layout.buildDirectory.file("results/jmh/results.json"))
+}
+
+// Checked-in benchmark baseline and allowed slowdown before jmhCompare fails
+val jmhBaselineFile = layout.projectDirectory.file("src/jmh/baseline.json")
+val jmhResultsFile = layout.buildDirectory.file("results/jmh/results.json")
+
+// Benchmark name + parameters, e.g. "SettingsRoundTripBenchmark.save[players=1000]"
+fun jmhKey(result: Map<*, *>): String {
+    val name = (result["benchmark"] as String).substringAfterLast(".benchmark.")
+    val params = (result["params"] as Map<*, *>?)?.entries
+        ?.sortedBy { it.key.toString() }
+        ?.joinToString(",") { "${it.key}=${it.value}" }
+    return if (params.isNullOrEmpty()) name else "$name[$params]"
 }
 
+fun jmhScores(file: File): Map<String, Double> =
+    (JsonSlurper().parse(file) as List<*>).associate { entry ->
+        val result = entry as Map<*, *>
+        jmhKey(result) to ((result["primaryMetric"] as Map<*, *>)["score"] as Number).toDouble()
+    }
+
 java {
     toolchain {
         languageVersion.set(JavaLanguageVersion.of(25))
@@ -36,4 +77,86 @@ tasks {
     build {
         dependsOn(shadowJar)
     }
+
+    test {
+        useJUnitPlatform()
+    }
+
+    register("jmhCompare") {
+        group = "verification"
+        description = "Compares JMH results with src/jmh/baseline.json and fails on regressions"
+        dependsOn("jmh")
+        inputs.file(jmhBaselineFile)
+        inputs.file(jmhResultsFile)
+
+        // No gate until scores are recorded (./gradlew jmhBaseline on the reference machine) -
+        // an empty baseline would fail every run and check nothing
+        onlyIf("src/jmh/baseline.json has recorded scores") {
+            @Suppress("UNCHECKED_CAST")
+            val baseline = JsonSlurper().parse(jmhBaselineFile.asFile) as Map<String, Any?>
+            (baseline["scores"] as Map<*, *>?).orEmpty().isNotEmpty()
+        }
+
+        doLast {
+            @Suppress("UNCHECKED_CAST")
+            val baseline = JsonSlurper().parse(jmhBaselineFile.asFile) as Map<String, Any?>
+            val tolerance = (baseline["tolerance"] as Number).toDouble()
+            val expected = (baseline["scores"] as Map<*, *>).mapKeys { it.key.toString() }
+            val actual = jmhScores(jmhResultsFile.get().asFile)
+
+            // All benchmarks are average time per operation - higher is slower
+            val regressions = mutableListOf<String>()
+            val missing = mutableListOf<String>()
+            for ((key, score) in actual) {
+                val reference = (expected[key] as Number?)?.toDouble()
+                if (reference == null) {
+                    missing += key
+                    logger.error("NO BASELINE ${key.padEnd(70)} now %12.3f".format(score))
+                    continue
+                }
+                val change = (score - reference) / reference
+                val line = "%-70s baseline %12.3f  now %12.3f  %+6.1f%%".format(key, reference, score, change * 100)
+                if (change > tolerance) {
+                    regressions += line
+                    logger.error("REGRESSION $line")
+                } else {
+                    logger.lifecycle("ok         $line")
+                }
+            }
+
+            // A benchmark without a baseline can never fail - record one with ./gradlew jmhBaseline
+            if (missing.isNotEmpty()) {
+                throw GradleException("${missing.size} benchmark(s) have no baseline in src/jmh/baseline.json - run ./gradlew jmhBaseline on the reference machine and commit it")
+            }
+            if (regressions.isNotEmpty()) {
+                throw GradleException("${regressions.size} benchmark(s) slower than baseline by more than ${(tolerance * 100).toInt()}%")
+            }
+        }
+    }
+
+    register<JavaExec>("simulate") {
+        group = "verification"
+        description = "Runs the headless synthetic-diver load simulator (options via -Pargs=\"...\")"
+        classpath = sourceSets["jmh"].runtimeClasspath
+        mainClass.set("com.underwaterdepth.simulator.DiveSimulator")
+        args = (project.findProperty("args") as String?)?.split(" ")?.filter { it.isNotBlank() } ?: emptyList()
+    }
+
+    register("jmhBaseline") {
+        group = "verification"
+        description = "Writes the latest JMH results to src/jmh/baseline.json"
+        dependsOn("jmh")
+        inputs.file(jmhResultsFile)
+
+        doLast {
+            @Suppress("UNCHECKED_CAST")
+            val previous = JsonSlurper().parse(jmhBaselineFile.asFile) as Map<String, Any?>
+            val baseline = linkedMapOf(
+                "tolerance" to previous["tolerance"],
+                "scores" to jmhScores(jmhResultsFile.get().asFile).toSortedMap()
+            )
+            jmhBaselineFile.asFile.writeText(JsonOutput.prettyPrint(JsonOutput.toJson(baseline)) + "\n")
+            logger.lifecycle("Updated ${jmhBaselineFile.asFile}")
+        }
+    }
 }
@@ -0,0 +1,65 @@
+package com.underwaterdepth.benchmark;
+
+import com.underwaterdepth.DepthMath;
+import com.underwaterdepth.DiveTelemetry;
+import com.underwaterdepth.ServerConfig;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Depth and sea level math performed by updateDepthWithThreshold for every evaluated diver
+ *
+ * @author BeyondSmash
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DepthMathBenchmark {
+
+    // Thresholds and sea level come from the default server config, as on a server without a config file
+    private final ServerConfig config = ServerConfig.get();
+    private final int seaLevel = config.getDefaultProfile().getSeaLevel();
+
+    private double[] entryYs;
+    private double[] playerYs;
+    private int index;
+    private long nowNanos;
+    private final DiveTelemetry telemetry = new DiveTelemetry();
+
+    @Setup
+    public void setup() {
+        int samples = 4096;
+        entryYs = new double[samples];
+        playerYs = new double[samples];
+        Random random = new Random(42);
+        for (int i = 0; i < samples; i++) {
+            entryYs[i] = 100 + random.nextDouble() * 20;
+            playerYs[i] = entryYs[i] - random.nextDouble() * 80;
+        }
+    }
+
+    /**
+     * Local depth, surface snap, visibility, sea level depth and telemetry sample for one diver
+     */
+    @Benchmark
+    public void evaluate(Blackhole blackhole) {
+        double entryY = entryYs[index];
+        double playerY = playerYs[index];
+        index = (index + 1) & (entryYs.length - 1);
+
+        float depth = DepthMath.snapToSurface(DepthMath.localDepth(entryY, playerY), config.getSurfaceSnap());
+        blackhole.consume(DepthMath.isVisibleDepth(depth, config.getShowThreshold()));
+        blackhole.consume(DepthMath.seaLevelDepth(entryY, depth, seaLevel));
+        nowNanos += 100_000_000L;
+        telemetry.addSample(nowNanos, depth, config.getDirectionStartSpeed(), config.getDirectionStopSpeed());
+        blackhole.consume(telemetry.getDirection());
+    }
+}
@@ -0,0 +1,96 @@
+package com.underwaterdepth.benchmark;
+
+import com.underwaterdepth.GaugeLayout;
+import com.underwaterdepth.GaugeRenderer;
+import com.underwaterdepth.HudPropertyState;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Cost of rendering the depth gauge (the body of DepthHud.updateGauge) and
+ * flushing the changed properties into a stand-in for UICommandBuilder
+ *
+ * @author BeyondSmash
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class GaugeRendererBenchmark {
+
+    /**
+     * Stand-in for UICommandBuilder - keeps the selector/value pairs like the real builder would
+     */
+    static final class RecordingBuilder implements HudPropertyState.Sink {
+        final String[] selectors = new String[256];
+        final String[] values = new String[256];
+        int count;
+
+        @Override
+        public void set(String selector, String value) {
+            selectors[count] = selector;
+            values[count] = value;
+            count++;
+        }
+    }
+
+    @Param({"true", "false"})
+    public boolean decimalEnabled;
+
+    @Param({"SINGLE_MARKER", "LEGACY"})
+    public GaugeLayout layout;
+
+    private GaugeRenderer gauge;
+    private final RecordingBuilder builder = new RecordingBuilder();
+
+    // A dive from the surface to 60m and back, sampled every 100ms at swim speed
+    private float[] depths;
+    private int step;
+
+    @Setup
+    public void setup() {
+        gauge = new GaugeRenderer(layout);
+        int samples = 2000;
+        depths = new float[samples];
+        for (int i = 0; i < samples; i++) {
+            float t = (float) i / samples;
+            depths[i] = 0.5f + 60f * (t < 0.5f ? t * 2f : (1f - t) * 2f);
+        }
+        gauge.render(depths[0], depths[0] + 3f, 0, decimalEnabled, true, true);
+        gauge.flush(builder);
+    }
+
+    /**
+     * One 100ms update of a diver - render the next depth and flush the difference
+     */
+    @Benchmark
+    public int updateStep() {
+        float depth = depths[step];
+        float previous = depths[step == 0 ? depths.length - 1 : step - 1];
+        step = (step + 1) % depths.length;
+
+        gauge.render(depth, depth + 3f, depth > previous ? 1 : -1, decimalEnabled, true, false);
+        builder.count = 0;
+        return gauge.flush(builder);
+    }
+
+    /**
+     * HUD rebuild - every property is rendered and sent
+     */
+    @Benchmark
+    public int fullBuild() {
+        float depth = depths[step];
+        step = (step + 1) % depths.length;
+
+        gauge.reset();
+        gauge.render(depth, depth + 3f, 0, decimalEnabled, true, true);
+        builder.count = 0;
+        return gauge.flush(builder);
+    }
+}
@@ -0,0 +1,70 @@
+package com.underwaterdepth.benchmark;
+
+import com.underwaterdepth.DiveState;
+import com.underwaterdepth.PlayerConfig;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+/**
+ * PlayerConfig.getConfig lookups against the snapshot DiveState caches - the depth pass reads
+ * the cached snapshot for every diver, from every world thread at once
+ *
+ * @author BeyondSmash
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PlayerConfigBenchmark {
+
+    private static final int PLAYERS = 1000;
+
+    @State(Scope.Benchmark)
+    public static class Players {
+        UUID[] uuids;
+        DiveState[] states;
+
+        @Setup
+        public void setup() {
+            uuids = new UUID[PLAYERS];
+            states = new DiveState[PLAYERS];
+            for (int i = 0; i < PLAYERS; i++) {
+                uuids[i] = UUID.randomUUID();
+                states[i] = new DiveState(uuids[i]);
+                PlayerConfig.putLoadedConfig(uuids[i], new PlayerConfig());
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int index;
+    }
+
+    @Benchmark
+    @Threads(1)
+    public PlayerConfig getConfigUncontended(Players players, Cursor cursor) {
+        cursor.index = (cursor.index + 1) % PLAYERS;
+        return PlayerConfig.getConfig(players.uuids[cursor.index]);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public PlayerConfig getConfigContended(Players players, Cursor cursor) {
+        cursor.index = (cursor.index + 1) % PLAYERS;
+        return PlayerConfig.getConfig(players.uuids[cursor.index]);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public PlayerConfig cachedSnapshot(Players players, Cursor cursor) {
+        cursor.index = (cursor.index + 1) % PLAYERS;
+        return players.states[cursor.index].getConfig();
+    }
+}
@@ -0,0 +1,118 @@
+package com.underwaterdepth.benchmark;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.hypixel.hytale.logger.HytaleLogger;
+import com.underwaterdepth.PlayerConfig;
+import com.underwaterdepth.PlayerSettingsStore;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Player settings round-trips through PlayerSettingsStore shard files, as done on
+ * settings changes (markDirty + write) and joins (shard read on the settings thread)
+ *
+ * @author BeyondSmash
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SettingsRoundTripBenchmark {
+
+    private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
+
+    @Param({"1000", "10000"})
+    public int players;
+
+    // Same Gson setup as the plugin
+    private final Gson gson = new GsonBuilder().setPrettyPrinting().create();
+
+    private Path dataDirectory;
+    private PlayerSettingsStore store;
+    private UUID[] uuids;
+    private int cursor;
+
+    @Setup
+    public void setup() throws IOException {
+        dataDirectory = Files.createTempDirectory("settings-benchmark");
+        store = new PlayerSettingsStore(dataDirectory, "player_settings.json", gson, LOGGER);
+
+        // Every player on custom settings, so all of them are written and loaded
+        uuids = new UUID[players];
+        for (int i = 0; i < players; i++) {
+            uuids[i] = UUID.randomUUID();
+            int opacity = 50 + i % 50;
+            PlayerConfig.update(uuids[i], c -> c.withCompactEnabled(true).withOpacity(opacity));
+            store.onJoin(uuids[i]);
+            store.markDirty(uuids[i]);
+        }
+        store.flush();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        store.shutdown();
+        for (UUID uuid : uuids) {
+            PlayerConfig.removeConfig(uuid);
+        }
+        try (Stream<Path> files = Files.walk(dataDirectory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    /**
+     * One player changes a setting - merged into its shard file
+     */
+    @Benchmark
+    public void saveOnePlayer() {
+        UUID uuid = uuids[cursor];
+        cursor = (cursor + 1) % players;
+        PlayerConfig.update(uuid, c -> c.withDecimalEnabled(!c.isDecimalEnabled()));
+        store.markDirty(uuid);
+        store.flush();
+    }
+
+    /**
+     * Every player changed since the last write - all shards rewritten
+     */
+    @Benchmark
+    public void saveAllPlayers() {
+        for (UUID uuid : uuids) {
+            store.markDirty(uuid);
+        }
+        store.flush();
+    }
+
+    /**
+     * Everyone leaves and joins again - one shard read per player on the settings thread
+     */
+    @Benchmark
+    public int loadAllPlayers() {
+        for (UUID uuid : uuids) {
+            store.onDisconnect(uuid);
+        }
+        for (UUID uuid : uuids) {
+            store.onJoin(uuid);
+        }
+        while (PlayerConfig.getLoadedCount() < players) {
+            Thread.onSpinWait();
+        }
+        return PlayerConfig.getLoadedCount();
+    }
+}
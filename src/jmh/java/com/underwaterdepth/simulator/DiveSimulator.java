@@ -0,0 +1,474 @@
+package com.underwaterdepth.simulator;
+
+import com.google.gson.Gson;
+import com.underwaterdepth.DepthDiagnostics;
+import com.underwaterdepth.DepthMetrics;
+import com.underwaterdepth.DepthPass;
+import com.underwaterdepth.DiverBatch;
+import com.underwaterdepth.FluidProbe;
+import com.underwaterdepth.GaugeDisplayTable;
+import com.underwaterdepth.GaugeHud;
+import com.underwaterdepth.GaugeLayout;
+import com.underwaterdepth.GaugeRenderer;
+import com.underwaterdepth.HudPropertyState;
+import com.underwaterdepth.HudSink;
+import com.underwaterdepth.HudUpdateBudget;
+import com.underwaterdepth.LatencyHistogram;
+import com.underwaterdepth.PlayerConfig;
+import com.underwaterdepth.ServerConfig;
+import com.underwaterdepth.WorldDepthState;
+import com.underwaterdepth.WorldProfile;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.UUID;
+import java.util.logging.Level;
+
+/**
+ * Headless load simulator - runs the depth pass for N synthetic divers without a server
+ *
+ * Drives the plugin's own DepthPass against a synthetic ocean, with the divers fed in
+ * through a DiverBatch and HUDs going to a HudSink whose gauges render into a counting
+ * sink in place of UICommandBuilder. Time is simulated, so a run takes as long as the
+ * passes themselves.
+ *
+ * Usage: ./gradlew simulate -Pargs="--players 100,1000,10000 --seconds 60 --mix sinking=50,hovering=30,surface_bobbing=20"
+ *
+ * @author BeyondSmash
+ */
+public class DiveSimulator {
+
+    // Ocean layout - same numbers as the default world (sea level 115)
+    private static final int SURFACE_Y = 115;
+    private static final int FLOOR_Y = 60;
+
+    // Divers spread out over this many blocks in X and Z
+    private static final int SPREAD_BLOCKS = 512;
+
+    // Horizontal swim speed, so divers keep crossing block columns (m/s)
+    private static final double DRIFT_SPEED = 0.8;
+
+    // Feet this far below the surface count as "in fluid" (movement state)
+    private static final double IN_FLUID_MARGIN = 0.2;
+
+    /**
+     * Stand-in for UICommandBuilder - counts commands and their approximate payload size
+     */
+    static final class CountingSink implements HudPropertyState.Sink {
+        long commands;
+        long bytes;
+
+        @Override
+        public void set(String selector, String value) {
+            commands++;
+            bytes += selector.length() + (value != null ? value.length() : 0);
+        }
+
+        @Override
+        public void set(String selector, int value) {
+            commands++;
+            bytes += selector.length() + 4;
+        }
+    }
+
+    /**
+     * Ocean of uniform depth everywhere - every column is loaded
+     */
+    static final class SyntheticOcean implements FluidProbe {
+        @Override
+        public boolean isColumnLoaded(int x, int z) {
+            return true;
+        }
+
+        @Override
+        public boolean isFluid(int x, int y, int z) {
+            return y >= FLOOR_Y && y < SURFACE_Y;
+        }
+    }
+
+    /**
+     * One synthetic player - how it moves and where it is this pass
+     */
+    static final class SyntheticDiver {
+        final UUID uuid;
+        final String username;
+        final MotionModel motion;
+        final double phase;
+        final double startX;
+        final double startZ;
+        final double heading;
+
+        double x;
+        double y;
+        double z;
+
+        SyntheticDiver(int id, MotionModel motion, Random random) {
+            this.uuid = new UUID(0L, id);
+            this.username = "diver" + id;
+            this.motion = motion;
+            this.phase = random.nextDouble();
+            this.startX = random.nextDouble() * SPREAD_BLOCKS;
+            this.startZ = random.nextDouble() * SPREAD_BLOCKS;
+            this.heading = random.nextDouble() * Math.PI * 2;
+        }
+
+        void moveTo(double seconds) {
+            double distance = DRIFT_SPEED * seconds;
+            x = startX + Math.cos(heading) * distance;
+            z = startZ + Math.sin(heading) * distance;
+            y = motion.y(seconds, phase, SURFACE_Y, FLOOR_Y);
+        }
+    }
+
+    /**
+     * The synthetic divers as the depth pass sees a chunk of player entities
+     */
+    static final class SyntheticBatch implements DiverBatch<SyntheticDiver> {
+        private final ArrayList<SyntheticDiver> divers;
+
+        SyntheticBatch(ArrayList<SyntheticDiver> divers) {
+            this.divers = divers;
+        }
+
+        @Override
+        public int size() {
+            return divers.size();
+        }
+
+        @Override
+        public boolean isInFluid(int index) {
+            return divers.get(index).y < SURFACE_Y - IN_FLUID_MARGIN;
+        }
+
+        @Override
+        public UUID getUuid(int index) {
+            return divers.get(index).uuid;
+        }
+
+        @Override
+        public SyntheticDiver getPlayer(int index) {
+            return divers.get(index);
+        }
+
+        @Override
+        public String getUsername(int index) {
+            return divers.get(index).username;
+        }
+
+        @Override
+        public double getX(int index) {
+            return divers.get(index).x;
+        }
+
+        @Override
+        public double getY(int index) {
+            return divers.get(index).y;
+        }
+
+        @Override
+        public double getZ(int index) {
+            return divers.get(index).z;
+        }
+    }
+
+    /**
+     * Gauge a synthetic diver has on screen - renders like DepthHud, sends to the counting sink
+     */
+    final class SimulatedHud implements GaugeHud {
+        private final GaugeRenderer gauge;
+        private GaugeDisplayTable displayTable;
+        private PlayerConfig config;
+        private float currentDepth;
+        private float sentDepth;
+        private long lastSentNanos;
+        private float verticalSpeed;
+        private boolean flushQueued;
+
+        SimulatedHud(float depth, float seaLevelDepth, GaugeLayout layout, GaugeDisplayTable displayTable, PlayerConfig config) {
+            this.gauge = new GaugeRenderer(layout);
+            this.displayTable = displayTable;
+            this.config = config;
+            this.currentDepth = depth;
+            this.sentDepth = depth;
+            this.lastSentNanos = now;
+
+            // New HUD - the build sends every property right away
+            gauge.render(displayTable, depth, seaLevelDepth, 0, config.isDecimalEnabled(), config.isSeaLevelDisplayEnabled(), true);
+            gauge.flush(result.sink);
+        }
+
+        @Override
+        public void updateDepth(float depth, float seaLevelDepth, int direction) {
+            currentDepth = depth;
+            gauge.render(displayTable, depth, seaLevelDepth, direction, config.isDecimalEnabled(), config.isSeaLevelDisplayEnabled(), false);
+        }
+
+        @Override
+        public int flushPending() {
+            if (!gauge.hasChanges()) {
+                return 0;
+            }
+            int written = gauge.flush(result.sink);
+            sentDepth = currentDepth;
+            lastSentNanos = now;
+            result.hudUpdates++;
+            return written;
+        }
+
+        @Override
+        public boolean hasPendingChanges() {
+            return gauge.hasChanges();
+        }
+
+        @Override
+        public GaugeLayout getLayout() {
+            return gauge.getLayout();
+        }
+
+        @Override
+        public void setDisplayTable(GaugeDisplayTable displayTable) {
+            this.displayTable = displayTable;
+        }
+
+        @Override
+        public void setConfig(PlayerConfig config) {
+            this.config = config;
+        }
+
+        @Override
+        public boolean isPlayerValid() {
+            return true;
+        }
+
+        @Override
+        public float getPendingDepthChange() {
+            return Math.abs(currentDepth - sentDepth);
+        }
+
+        @Override
+        public float getVerticalSpeed() {
+            return verticalSpeed;
+        }
+
+        @Override
+        public void setVerticalSpeed(float verticalSpeed) {
+            this.verticalSpeed = verticalSpeed;
+        }
+
+        @Override
+        public long getLastSentNanos() {
+            return lastSentNanos;
+        }
+
+        @Override
+        public boolean markFlushQueued() {
+            if (flushQueued) {
+                return false;
+            }
+            flushQueued = true;
+            return true;
+        }
+
+        @Override
+        public boolean takeFlushQueued() {
+            boolean queued = flushQueued;
+            flushQueued = false;
+            return queued;
+        }
+    }
+
+    /**
+     * Results of one run
+     */
+    static final class Result {
+        int players;
+        int passes;
+        LatencyHistogram passTime = new LatencyHistogram();
+        long allocatedBytes;
+        long evaluations;
+        long skipped;
+        long hudUpdates;
+        long backlog;
+        long shows;
+        long hides;
+        CountingSink sink = new CountingSink();
+    }
+
+    private final ArrayList<SyntheticDiver> divers = new ArrayList<>();
+    private final SyntheticBatch batch = new SyntheticBatch(divers);
+    private final WorldProfile profile;
+    private final WorldDepthState world;
+    private final DepthPass<SyntheticDiver> depthPass;
+
+    // Simulated clock (starts at the real clock so the HUD budget refills normally)
+    private final long startNanos = System.nanoTime();
+    private long now = startNanos;
+
+    // Where shows, hides and HUD traffic of the current pass are counted
+    private Result result = new Result();
+
+    /**
+     * @param config Server config the pass runs with (layout, budget, compact threshold)
+     */
+    public DiveSimulator(int players, int[] mix, ServerConfig config, boolean decimalEnabled, long seed) {
+        this.profile = config.getDefaultProfile();
+        this.world = new WorldDepthState("simulator", profile, new SyntheticOcean());
+        this.depthPass = new DepthPass<>(new HudSink<>() {
+            @Override
+            public GaugeHud show(SyntheticDiver player, float depth, float seaLevelDepth, GaugeLayout layout,
+                                 GaugeDisplayTable displayTable, PlayerConfig playerConfig) {
+                result.shows++;
+                return new SimulatedHud(depth, seaLevelDepth, layout, displayTable, playerConfig);
+            }
+
+            @Override
+            public void hide(SyntheticDiver player, GaugeHud hud) {
+                result.hides++;
+            }
+        }, (uuid, username, maxDepth, durationMillis, worldName) -> { }, player -> "simulator",
+            new HudUpdateBudget(config.getHudBudget()));
+
+        Random random = new Random(seed);
+        int totalWeight = 0;
+        for (int weight : mix) {
+            totalWeight += weight;
+        }
+        for (int i = 0; i < players; i++) {
+            int pick = random.nextInt(totalWeight);
+            int model = 0;
+            while (pick >= mix[model]) {
+                pick -= mix[model];
+                model++;
+            }
+            SyntheticDiver diver = new SyntheticDiver(i, MotionModel.values()[model], random);
+            PlayerConfig.update(diver.uuid, c -> c.withDecimalEnabled(decimalEnabled));
+            divers.add(diver);
+        }
+    }
+
+    /**
+     * Run a number of passes of simulated time
+     *
+     * @param warmupPasses Passes run first and left out of the results
+     */
+    public Result run(int passes, int warmupPasses) {
+        result = new Result();
+        for (int pass = 0; pass < warmupPasses; pass++) {
+            runPass(pass);
+        }
+
+        Result measured = new Result();
+        measured.players = divers.size();
+        result = measured;
+        long evaluatedBefore = DepthMetrics.PLAYERS_EVALUATED.sum();
+        long skippedBefore = DepthMetrics.EVALUATIONS_SKIPPED.sum();
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+        for (int pass = warmupPasses; pass < warmupPasses + passes; pass++) {
+            long start = System.nanoTime();
+            runPass(pass);
+            measured.passTime.record(System.nanoTime() - start);
+            measured.backlog += world.getPendingHudCount();
+        }
+        measured.allocatedBytes = threads.getCurrentThreadAllocatedBytes() - allocatedBefore;
+        measured.evaluations = DepthMetrics.PLAYERS_EVALUATED.sum() - evaluatedBefore;
+        measured.skipped = DepthMetrics.EVALUATIONS_SKIPPED.sum() - skippedBefore;
+        measured.passes = passes;
+        return measured;
+    }
+
+    /**
+     * One depth pass - mirrors DepthUpdateTask.tick for a single world
+     */
+    private void runPass(int pass) {
+        now = startNanos + pass * profile.getUpdatePeriodNanos();
+        double seconds = pass * (profile.getUpdatePeriodMillis() / 1000.0);
+        for (int i = 0; i < divers.size(); i++) {
+            divers.get(i).moveTo(seconds);
+        }
+
+        if (!world.tryStartPass(now, profile.getUpdatePeriodNanos())) {
+            return;
+        }
+        try {
+            depthPass.updateDivers(world, batch, now);
+            depthPass.finishPass(world, now);
+        } finally {
+            world.endPass();
+        }
+    }
+
+    /**
+     * Server config for a run - written to a scratch directory and loaded like the plugin does
+     */
+    private static ServerConfig loadConfig(GaugeLayout layout, int budgetPerSecond, int compactThreshold) {
+        try {
+            Path directory = Files.createTempDirectory("dive-simulator");
+            Files.writeString(directory.resolve(ServerConfig.FILE_NAME), String.format(
+                "{\"gaugeLayout\": \"%s\", \"hudBudget\": %d, \"compactThreshold\": %d}",
+                layout.name().toLowerCase(), budgetPerSecond, compactThreshold));
+            return ServerConfig.load(directory, new Gson());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static void main(String[] args) {
+        String players = "100,1000,10000";
+        int seconds = 60;
+        String mix = "sinking=50,hovering=30,surface_bobbing=20";
+        int budgetPerSecond = 0;
+        int compactThreshold = 0;
+        GaugeLayout layout = GaugeLayout.SINGLE_MARKER;
+        boolean decimal = true;
+
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--players" -> players = args[i + 1];
+                case "--seconds" -> seconds = Integer.parseInt(args[i + 1]);
+                case "--mix" -> mix = args[i + 1];
+                case "--budget" -> budgetPerSecond = Integer.parseInt(args[i + 1]);
+                case "--compact-threshold" -> compactThreshold = Integer.parseInt(args[i + 1]);
+                case "--layout" -> layout = GaugeLayout.valueOf(args[i + 1].toUpperCase());
+                case "--decimal" -> decimal = Boolean.parseBoolean(args[i + 1]);
+                default -> throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        // Diagnostics of thousands of divers would drown the report
+        DepthDiagnostics.setThreshold(Level.WARNING);
+
+        ServerConfig config = loadConfig(layout, budgetPerSecond, compactThreshold);
+        long passMillis = config.getDefaultProfile().getUpdatePeriodMillis();
+        int passes = (int) (seconds * 1000 / passMillis);
+        int warmup = Math.min(passes, 300);
+        System.out.printf("Simulating %ds (%d passes) per run | mix %s | layout %s | decimal %s | budget %s | compact above %s%n",
+            seconds, passes, mix, layout, decimal, budgetPerSecond > 0 ? budgetPerSecond + "/s" : "unlimited",
+            compactThreshold > 0 ? compactThreshold + " HUDs" : "never");
+        System.out.printf("%8s %10s %10s %10s %12s %10s %10s %12s %10s %10s%n",
+            "players", "pass mean", "pass p99", "alloc/pass", "evals/pass", "skip %", "upd/pass", "cmds/pass", "bytes/s", "waiting");
+
+        for (String count : players.split(",")) {
+            DiveSimulator simulator = new DiveSimulator(Integer.parseInt(count.trim()), MotionModel.parseMix(mix),
+                config, decimal, 42L);
+            Result r = simulator.run(passes, warmup);
+            double evaluated = r.evaluations + r.skipped;
+            System.out.printf("%8d %9.1fus %9dus %9dB %12.1f %9.1f%% %10.1f %12.1f %10.0f %10.1f%n",
+                r.players,
+                r.passTime.getMeanMicros(),
+                r.passTime.getPercentileMicros(99),
+                r.allocatedBytes / r.passes,
+                (double) r.evaluations / r.passes,
+                evaluated > 0 ? 100.0 * r.skipped / evaluated : 0.0,
+                (double) r.hudUpdates / r.passes,
+                (double) r.sink.commands / r.passes,
+                r.sink.bytes / (r.passes * (passMillis / 1000.0)),
+                (double) r.backlog / r.passes);
+        }
+    }
+}
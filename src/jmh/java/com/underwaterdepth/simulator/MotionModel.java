@@ -0,0 +1,67 @@
+package com.underwaterdepth.simulator;
+
+/**
+ * Vertical motion of a synthetic diver
+ * Each model gives the diver's feet Y for a point in time, around the ocean surface
+ *
+ * @author BeyondSmash
+ */
+public enum MotionModel {
+
+    // Swims down to the floor at a steady rate, then back up, over and over
+    SINKING {
+        @Override
+        public double y(double seconds, double phase, double surfaceY, double floorY) {
+            double span = surfaceY - 1.0 - floorY;
+            double period = 2.0 * span / SWIM_SPEED;
+            double t = (seconds + phase * period) % period;
+            double travelled = SWIM_SPEED * t;
+            return travelled < span ? surfaceY - 1.0 - travelled : floorY + (travelled - span);
+        }
+    },
+
+    // Holds a depth with small drift, like a diver looking around
+    HOVERING {
+        @Override
+        public double y(double seconds, double phase, double surfaceY, double floorY) {
+            double holdDepth = 3.0 + phase * (surfaceY - floorY - 6.0);
+            return surfaceY - 1.0 - holdDepth + 0.03 * Math.sin(seconds * 0.7 + phase * 10.0);
+        }
+    },
+
+    // Floats at the surface, dipping in and out of the water with the waves
+    SURFACE_BOBBING {
+        @Override
+        public double y(double seconds, double phase, double surfaceY, double floorY) {
+            return surfaceY - 1.0 + 0.6 * Math.sin(seconds * 1.3 + phase * 20.0);
+        }
+    };
+
+    // Vertical swim speed of sinking divers (m/s)
+    private static final double SWIM_SPEED = 1.5;
+
+    /**
+     * Feet Y at a time
+     *
+     * @param seconds Simulated time since the start
+     * @param phase Per-diver offset in [0, 1) so divers don't move in lockstep
+     * @param surfaceY First air block above the water
+     * @param floorY Lowest Y a diver reaches
+     */
+    public abstract double y(double seconds, double phase, double surfaceY, double floorY);
+
+    /**
+     * Parse a mix like "sinking=50,hovering=30,surface_bobbing=20" into weights per model
+     */
+    public static int[] parseMix(String mix) {
+        int[] weights = new int[values().length];
+        for (String part : mix.split(",")) {
+            String[] pair = part.trim().split("=");
+            if (pair.length != 2) {
+                throw new IllegalArgumentException("Bad motion mix entry: " + part);
+            }
+            weights[valueOf(pair[0].trim().toUpperCase()).ordinal()] = Integer.parseInt(pair[1].trim());
+        }
+        return weights;
+    }
+}
@@ -0,0 +1,239 @@
+package com.underwaterdepth;
+
+import com.hypixel.hytale.logger.HytaleLogger;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Level-guarded, rate-limited diagnostic logging for the depth update hot path
+ *
+ * Callers check shouldLog() before building a message, so nothing is formatted or
+ * allocated when a category is off:
+ *
+ *   if (DepthDiagnostics.shouldLog(Category.SEA_LEVEL, uuid)) {
+ *       DepthDiagnostics.log(Category.SEA_LEVEL, uuid, "...");
+ *   }
+ *
+ * Messages about a player are rate-limited per player and category, so one noisy diver can't
+ * use up the allowance and hide everyone else; server-wide messages share one limit per category.
+ * Players with trace enabled (/wdepth trace) bypass the level check and get a more generous limit.
+ * Limits are kept for at most MAX_LIMITED_PLAYERS players (idle ones are dropped, and players beyond
+ * that share the category limit).
+ *
+ * @author BeyondSmash
+ */
+public final class DepthDiagnostics {
+
+    /**
+     * Diagnostic categories with their level and minimum interval between messages
+     */
+    public enum Category {
+        HUD_BUILD(Level.FINE, 1000),
+        HUD_UPDATE(Level.FINEST, 1000),
+        SEA_LEVEL(Level.FINER, 1000),
+        WATER_STATE(Level.FINE, 1000),
+        HUD_VISIBILITY(Level.INFO, 250);
+
+        private final Level level;
+        private final long intervalNanos;
+        private final AtomicLong lastLogNanos;
+        private final AtomicLong suppressed = new AtomicLong();
+
+        Category(Level level, long intervalMillis) {
+            this.level = level;
+            this.intervalNanos = TimeUnit.MILLISECONDS.toNanos(intervalMillis);
+            this.lastLogNanos = new AtomicLong(System.nanoTime() - intervalNanos);
+        }
+
+        public Level getLevel() {
+            return level;
+        }
+
+        /**
+         * Claim the right to log now - at most one message per interval across all threads
+         * (server-wide messages, and players beyond MAX_LIMITED_PLAYERS)
+         */
+        private boolean tryAcquire(long now) {
+            long last = lastLogNanos.get();
+            if (now - last >= intervalNanos && lastLogNanos.compareAndSet(last, now)) {
+                return true;
+            }
+            suppressed.incrementAndGet();
+            return false;
+        }
+    }
+
+    /**
+     * One player's last log time and suppressed count per category
+     */
+    private static final class PlayerLimits {
+        private final AtomicLongArray lastLogNanos = new AtomicLongArray(Category.values().length);
+        private final AtomicLongArray suppressed = new AtomicLongArray(Category.values().length);
+        private volatile long lastUsedNanos;
+
+        PlayerLimits(long now) {
+            for (Category category : Category.values()) {
+                lastLogNanos.set(category.ordinal(), now - category.intervalNanos - TRACE_INTERVAL_NANOS);
+            }
+            lastUsedNanos = now;
+        }
+
+        private boolean tryAcquire(int index, long now, long intervalNanos) {
+            lastUsedNanos = now;
+            long last = lastLogNanos.get(index);
+            if (now - last >= intervalNanos && lastLogNanos.compareAndSet(index, last, now)) {
+                return true;
+            }
+            suppressed.incrementAndGet(index);
+            return false;
+        }
+    }
+
+    // Minimum interval between messages per category for a traced player
+    private static final long TRACE_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+    // Players with their own limits, and how long an unused entry is kept once that many are tracked
+    private static final int MAX_LIMITED_PLAYERS = 4096;
+    private static final long IDLE_NANOS = TimeUnit.SECONDS.toNanos(60);
+    private static final long SWEEP_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private static final Logger FALLBACK_LOGGER = Logger.getLogger("UnderwaterDepth");
+
+    // Categories below this level are off (unless the player is traced)
+    private static volatile Level threshold = Level.INFO;
+
+    private static volatile HytaleLogger logger;
+
+    private static final Set<UUID> tracedPlayers = ConcurrentHashMap.newKeySet();
+    private static final Map<UUID, PlayerLimits> playerLimits = new ConcurrentHashMap<>();
+    private static final AtomicLong lastSweepNanos = new AtomicLong();
+
+    private DepthDiagnostics() {
+    }
+
+    /**
+     * Route diagnostics to the plugin logger
+     */
+    public static void init(HytaleLogger pluginLogger) {
+        logger = pluginLogger;
+    }
+
+    public static Level getThreshold() {
+        return threshold;
+    }
+
+    public static void setThreshold(Level level) {
+        threshold = level;
+    }
+
+    /**
+     * Switch trace logging for a player on or off
+     */
+    public static void setTrace(UUID player, boolean enabled) {
+        if (enabled) {
+            tracedPlayers.add(player);
+        } else {
+            tracedPlayers.remove(player);
+        }
+    }
+
+    /**
+     * Drop a player's trace setting and limits (disconnect)
+     */
+    public static void forgetPlayer(UUID player) {
+        tracedPlayers.remove(player);
+        playerLimits.remove(player);
+    }
+
+    public static boolean isTraced(UUID player) {
+        return player != null && !tracedPlayers.isEmpty() && tracedPlayers.contains(player);
+    }
+
+    public static int getTracedCount() {
+        return tracedPlayers.size();
+    }
+
+    /**
+     * Check if a message should be written - call before building the message
+     *
+     * @param player Player the message is about (null for server-wide messages)
+     */
+    public static boolean shouldLog(Category category, UUID player) {
+        // Level guard first - a disabled category costs one comparison (traced players always log)
+        boolean traced = isTraced(player);
+        if (!traced && category.level.intValue() < threshold.intValue()) {
+            return false;
+        }
+
+        long now = System.nanoTime();
+        PlayerLimits limits = player != null ? limitsFor(player, now) : null;
+        if (limits == null) {
+            return category.tryAcquire(now);
+        }
+        return limits.tryAcquire(category.ordinal(), now, traced ? TRACE_INTERVAL_NANOS : category.intervalNanos);
+    }
+
+    /**
+     * A player's limits - null once MAX_LIMITED_PLAYERS are tracked and none is idle
+     */
+    private static PlayerLimits limitsFor(UUID player, long now) {
+        PlayerLimits limits = playerLimits.get(player);
+        if (limits != null) {
+            return limits;
+        }
+        if (playerLimits.size() >= MAX_LIMITED_PLAYERS && !sweepIdle(now)) {
+            return null;
+        }
+        return playerLimits.computeIfAbsent(player, k -> new PlayerLimits(now));
+    }
+
+    /**
+     * Drop limits of players that haven't logged for IDLE_NANOS (at most once per SWEEP_INTERVAL_NANOS)
+     *
+     * @return true if there is room for another player
+     */
+    private static boolean sweepIdle(long now) {
+        long last = lastSweepNanos.get();
+        if (now - last >= SWEEP_INTERVAL_NANOS && lastSweepNanos.compareAndSet(last, now)) {
+            playerLimits.values().removeIf(limits -> now - limits.lastUsedNanos > IDLE_NANOS);
+        }
+        return playerLimits.size() < MAX_LIMITED_PLAYERS;
+    }
+
+    /**
+     * Write a message that passed shouldLog()
+     */
+    public static void log(Category category, UUID player, String message) {
+        boolean traced = isTraced(player);
+        PlayerLimits limits = player != null ? playerLimits.get(player) : null;
+        long suppressed = limits != null ? limits.suppressed.getAndSet(category.ordinal(), 0)
+            : category.suppressed.getAndSet(0);
+
+        String line = (traced ? "[TRACE] " : "") + message
+            + (suppressed > 0 ? " (" + suppressed + " similar messages suppressed)" : "");
+
+        // Traced messages are written at INFO so they show up regardless of logger config
+        Level level = traced ? Level.INFO : category.level;
+        HytaleLogger target = logger;
+        if (target != null) {
+            target.at(level).log(line);
+        } else {
+            FALLBACK_LOGGER.log(level, line);
+        }
+    }
+
+    /**
+     * Drop all trace settings (shutdown)
+     */
+    public static void clear() {
+        tracedPlayers.clear();
+        playerLimits.clear();
+    }
+}
@@ -1,6 +1,8 @@
 package com.underwaterdepth;
 
+import com.hypixel.hytale.component.Ref;
 import com.hypixel.hytale.server.core.universe.PlayerRef;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
 import com.hypixel.hytale.server.core.entity.entities.player.hud.CustomUIHud;
 import com.hypixel.hytale.server.core.ui.builder.UICommandBuilder;
 import com.hypixel.hytale.protocol.packets.interface_.CustomHud;
@@ -14,7 +16,7 @@ import javax.annotation.Nonnull;
  *
  * @author BeyondSmash
  */
-public class DepthHud extends CustomUIHud {
+public class DepthHud extends CustomUIHud implements GaugeHud {
 
     private static final Logger LOGGER = Logger.getLogger("UnderwaterDepth");
     public static final String ID = "WaterDepthGauge";
@@ -22,31 +24,53 @@ public class DepthHud extends CustomUIHud {
     private float currentDepth = 0f;
     private float currentSeaLevelDepth = 0f;
 
-    // Dynamic gauge ranges
-    private static final int BASE_RANGE = 20;  // 0-20m base range
+    // Gauge properties and what this player's client was last sent
+    private final GaugeRenderer gauge;
 
-    public DepthHud(PlayerRef playerRef, float initialDepth, float initialSeaLevelDepth) {
+    // Display table of the world the player is diving in (gauge range and resolution)
+    private GaugeDisplayTable displayTable;
+
+    // Player's settings snapshot the gauge is rendered with (replaced when they change)
+    private PlayerConfig config;
+
+    // Whether this HUD is in its world's end-of-pass flush list
+    private boolean flushQueued = false;
+
+    // Depth the client currently shows, and when it was last sent
+    private float sentDepth;
+    private long lastSentNanos;
+
+    // Diver's vertical speed when the update was queued (m/s)
+    private float verticalSpeed = 0f;
+
+    public DepthHud(PlayerRef playerRef, float initialDepth, float initialSeaLevelDepth, GaugeLayout layout,
+                    GaugeDisplayTable displayTable, PlayerConfig config) {
         super(playerRef);
+        this.gauge = new GaugeRenderer(layout);
+        this.displayTable = displayTable;
+        this.config = config;
         this.currentDepth = initialDepth;
         this.currentSeaLevelDepth = initialSeaLevelDepth;
+        this.sentDepth = initialDepth;
+        this.lastSentNanos = System.nanoTime();
     }
 
     @Override
     protected void build(@Nonnull UICommandBuilder builder) {
-        LOGGER.info("[DepthHud] Building HUD from embedded UI file");
-        LOGGER.info("[DepthHud] Initial depth: " + currentDepth + "m, sea level: " + currentSeaLevelDepth + "m");
-
         try {
             // Load embedded UI file from JAR resources
-            String uiPath = "Hud/UnderwaterDepth/UnderwaterDepth_DepthMeter.ui";
-            LOGGER.info("[DepthHud] Loading UI file: " + uiPath);
+            String uiPath = gauge.getLayout().getUiPath();
             builder.append(uiPath);
 
-            // Set initial gauge state
-            LOGGER.info("[DepthHud] Setting initial gauge state");
-            updateGauge(builder, currentDepth, currentSeaLevelDepth, 0, true);
+            // Set initial gauge state - a fresh UI knows nothing, so send every property
+            updateGauge(currentDepth, currentSeaLevelDepth, 0, true);
+            int written = gauge.flush(new BuilderSink(builder));
 
-            LOGGER.info("[DepthHud] Build complete");
+            java.util.UUID uuid = getPlayerRef().getUuid();
+            if (DepthDiagnostics.shouldLog(DepthDiagnostics.Category.HUD_BUILD, uuid)) {
+                DepthDiagnostics.log(DepthDiagnostics.Category.HUD_BUILD, uuid, "[DepthHud] Built HUD from " + uiPath
+                    + " for " + uuid + " - depth: " + currentDepth + "m, sea level: " + currentSeaLevelDepth + "m, " + written + " properties");
+            }
         } catch (Exception e) {
             LOGGER.severe("[DepthHud] Error building HUD: " + e.getMessage());
             e.printStackTrace();
@@ -55,192 +79,187 @@ public class DepthHud extends CustomUIHud {
 
     /**
      * Update the displayed depth value
+     * Only records the changed properties - nothing is sent until flushPending()
      *
      * @param depth Depth in meters (relative to water entry)
-     * @param seaLevelDepth Depth relative to sea level (Y=115)
+     * @param seaLevelDepth Depth relative to sea level (seaLevel of the world profile)
      * @param direction Direction of movement: 1 = descending, -1 = rising, 0 = stationary
      */
+    @Override
     public void updateDepth(float depth, float seaLevelDepth, int direction) {
         this.currentDepth = depth;
         this.currentSeaLevelDepth = seaLevelDepth;
 
-        // Log update frequency (every 50th update to avoid spam)
-        updateCount++;
-        if (updateCount % 50 == 0) {
-            LOGGER.fine("[DepthHud] Update #" + updateCount + " - depth=" + depth + "m, sea=" + seaLevelDepth + "m, dir=" + direction);
-        }
-
-        // Create update builder
-        UICommandBuilder builder = new UICommandBuilder();
+        long start = System.nanoTime();
 
-        // Update the gauge
-        updateGauge(builder, depth, seaLevelDepth, direction, false);
+        // Update the gauge (records changes against what the client already shows)
+        updateGauge(depth, seaLevelDepth, direction, false);
 
-        // Apply update
-        update(false, builder);
+        DepthMetrics.recordHudRender(System.nanoTime() - start, gauge.hasChanges());
     }
 
-    private int updateCount = 0;
-
     /**
-     * Update gauge based on depth - dynamic range with labeled ticks
+     * Use another world profile's display table from the next update (world change or reload)
      */
-    private void updateGauge(UICommandBuilder builder, float depth, float seaLevelDepth, int direction, boolean isInitialBuild) {
-        LOGGER.info("[DepthHud] updateGauge called - depth=" + depth + ", seaLevel=" + seaLevelDepth + ", direction=" + direction + ", isInitialBuild=" + isInitialBuild);
-
-        // Get player config
-        PlayerRef playerRef = getPlayerRef();
-        java.util.UUID uuid = playerRef.getUuid();
-        PlayerConfig config = PlayerConfig.getConfig(uuid);
-
-        // Get absolute depth
-        float absDepth = Math.abs(depth);
-        boolean isAboveSurface = depth < 0;
-
-        // Determine range and tick labels based on depth
-        int baseRange = (int)(Math.floor(absDepth / BASE_RANGE) * BASE_RANGE);
-        boolean isNegativeRange = isAboveSurface && absDepth >= 1.0f;
-
-        // Update sea level display (or hide if disabled)
-        updateSeaLevelDisplay(builder, seaLevelDepth, config.isSeaLevelDisplayEnabled());
-
-        // Update local depth label with directional arrow
-        updateLocalDepthLabel(builder, direction);
+    @Override
+    public void setDisplayTable(GaugeDisplayTable displayTable) {
+        this.displayTable = displayTable;
+    }
 
-        // Show gauge and update tick labels for current range
-        showGaugeElements(builder, baseRange, isNegativeRange);
+    /**
+     * Use the player's current settings snapshot from the next update
+     * A new version only re-sends what it changes on screen (sea level line, depth text)
+     */
+    @Override
+    public void setConfig(PlayerConfig config) {
+        this.config = config;
+    }
 
-        // Calculate marker position within current 20m range
-        float depthInRange = absDepth - baseRange;
-        float normalizedDepth = Math.min(depthInRange / BASE_RANGE, 1.0f);
+    /**
+     * Layout this HUD was built with (COMPACT for the compact profile)
+     */
+    @Override
+    public GaugeLayout getLayout() {
+        return gauge.getLayout();
+    }
 
-        // Map to marker indices (0-59) - now 60 positions instead of 15
-        int markerIndex = Math.round(normalizedDepth * 59);
-        markerIndex = Math.max(0, Math.min(59, markerIndex));
+    /**
+     * Check if the gauge has changes the client hasn't been sent yet
+     */
+    @Override
+    public boolean hasPendingChanges() {
+        return gauge.hasChanges();
+    }
 
-        // For negative ranges (above surface), invert marker position
-        if (isNegativeRange) {
-            markerIndex = 59 - markerIndex;
+    /**
+     * Send all pending changes to the client in one update
+     *
+     * @return Number of properties sent
+     */
+    @Override
+    public int flushPending() {
+        // Nothing changed on screen - skip the packet entirely
+        if (!gauge.hasChanges()) {
+            return 0;
         }
 
-        // Format depth text with decimal or whole number based on config
-        String prefix = isAboveSurface ? "+" : "-";
-        String depthText;
-        if (config.isDecimalEnabled()) {
-            depthText = prefix + String.format("%.1f", absDepth) + "m";
-        } else {
-            depthText = prefix + Math.round(absDepth) + "m";
+        try {
+            // Create update builder with only the changed properties and apply it
+            UICommandBuilder builder = new UICommandBuilder();
+            int written = gauge.flush(new BuilderSink(builder));
+            update(false, builder);
+            sentDepth = currentDepth;
+            lastSentNanos = System.nanoTime();
+            DepthMetrics.recordHudSent(written);
+            return written;
+        } catch (Exception e) {
+            LOGGER.warning("[DepthHud] Error sending HUD update: " + e.getMessage());
+            // The shadow copy already holds the unsent values - forget it and queue every
+            // property again, so the next flush re-sends instead of diffing against a lie
+            updateGauge(currentDepth, currentSeaLevelDepth, 0, true);
+            return 0;
         }
+    }
 
-        // Determine marker color based on depth
-        String markerColor = getMarkerColor(absDepth, config.isDecimalEnabled());
-
-        LOGGER.info("[DepthHud] Depth: " + depthText + " - range: " + baseRange + "-" + (baseRange + BASE_RANGE) + " - marker: " + markerIndex + " - color: " + markerColor);
-
-        // Show only the active marker, hide all others
-        updateMarkerVisibility(builder, markerIndex, depthText, markerColor);
+    /**
+     * Check if the player this HUD belongs to still has a valid entity
+     */
+    @Override
+    public boolean isPlayerValid() {
+        Ref<EntityStore> ref = getPlayerRef().getReference();
+        return ref != null && ref.isValid();
     }
 
     /**
-     * Get marker color based on depth value
-     * - #FFE6B5 (pale orange) for 5m intervals (5.0, 10.0, 15.0, etc.)
-     * - #ffffff (white) for all other depths
+     * How far the depth has moved since the client was last sent an update (meters)
      */
-    private String getMarkerColor(float absDepth, boolean decimalEnabled) {
-        // If decimal mode is off, check whole number for 5m intervals
-        if (!decimalEnabled) {
-            int wholeDepth = Math.round(absDepth);
-            if (wholeDepth % 5 == 0 && wholeDepth > 0) {
-                return "#FFE6B5"; // 5m intervals (pale orange)
-            }
-            return "#ffffff"; // All other depths (white)
-        }
+    @Override
+    public float getPendingDepthChange() {
+        return Math.abs(currentDepth - sentDepth);
+    }
 
-        // Check if it's a 5m interval (within 0.05m tolerance)
-        float remainder5 = absDepth % 5.0f;
-        if (remainder5 < 0.05f || remainder5 > 4.95f) {
-            return "#FFE6B5"; // 5m intervals (pale orange)
-        }
+    @Override
+    public float getVerticalSpeed() {
+        return verticalSpeed;
+    }
 
-        // All other depths (decimals and whole numbers)
-        return "#ffffff"; // White
+    @Override
+    public void setVerticalSpeed(float verticalSpeed) {
+        this.verticalSpeed = verticalSpeed;
+    }
+
+    @Override
+    public long getLastSentNanos() {
+        return lastSentNanos;
     }
 
     /**
-     * Update local depth label with directional indicator
+     * Mark this HUD as queued for the end-of-pass flush
+     *
+     * @return false if it was already queued
      */
-    private void updateLocalDepthLabel(UICommandBuilder builder, int direction) {
-        // Update label text
-        builder.set("#LocalDepthLabel.Text", "Local Water Depth:");
-
-        // Update directional arrow using simple text characters
-        if (direction > 0) {
-            // Descending - show down arrow
-            builder.set("#DirectionIcon.Text", "v");
-        } else if (direction < 0) {
-            // Rising - show up arrow
-            builder.set("#DirectionIcon.Text", "^");
-        } else {
-            // Stationary - hide by clearing text
-            builder.set("#DirectionIcon.Text", "");
+    @Override
+    public boolean markFlushQueued() {
+        if (flushQueued) {
+            return false;
         }
+        flushQueued = true;
+        return true;
     }
 
     /**
-     * Update sea level display text (or hide if disabled)
+     * Take this HUD off the flush queue (flushed, or hidden before the flush)
+     *
+     * @return true if it was queued
      */
-    private void updateSeaLevelDisplay(UICommandBuilder builder, float seaLevelDepth, boolean enabled) {
-        if (!enabled) {
-            // Hide sea level display
-            builder.set("#SeaLevelText.Text", "");
-            builder.set("#SeaLevelValue.Text", "");
-            return;
-        }
-
-        String direction = seaLevelDepth > 0 ? "below" : "above";
-        float absSeaLevel = Math.abs(seaLevelDepth);
-
-        // Format combined text: "Units below sea level: 5m"
-        // The value is bold/larger via separate label with fixed positioning
-        builder.set("#SeaLevelText.Text", "Units " + direction + " sea level:");
-        builder.set("#SeaLevelValue.Text", Math.round(absSeaLevel) + "m");
+    @Override
+    public boolean takeFlushQueued() {
+        boolean queued = flushQueued;
+        flushQueued = false;
+        return queued;
     }
 
     /**
-     * Show gauge tick labels based on current range
-     * For negative range (above surface), labels are reversed bottom-to-top
+     * Update gauge based on depth - dynamic range with labeled ticks
+     * All display values come from the precomputed GaugeDisplayTable
+     *
+     * @param isInitialBuild Forget what the client was sent and queue every property
      */
-    private void showGaugeElements(UICommandBuilder builder, int baseRange, boolean isNegativeRange) {
-        if (isNegativeRange) {
-            // Above surface: reversed order (18 at bottom, 3 at top)
-            builder.set("#Tick3m.Text", (baseRange + 18) + "m");
-            builder.set("#Tick6m.Text", (baseRange + 15) + "m");
-            builder.set("#Tick9m.Text", (baseRange + 12) + "m");
-            builder.set("#Tick12m.Text", (baseRange + 9) + "m");
-            builder.set("#Tick15m.Text", (baseRange + 6) + "m");
-            builder.set("#Tick18m.Text", (baseRange + 3) + "m");
-        } else {
-            // Below surface: normal order
-            builder.set("#Tick3m.Text", (baseRange + 3) + "m");
-            builder.set("#Tick6m.Text", (baseRange + 6) + "m");
-            builder.set("#Tick9m.Text", (baseRange + 9) + "m");
-            builder.set("#Tick12m.Text", (baseRange + 12) + "m");
-            builder.set("#Tick15m.Text", (baseRange + 15) + "m");
-            builder.set("#Tick18m.Text", (baseRange + 18) + "m");
+    private void updateGauge(float depth, float seaLevelDepth, int direction, boolean isInitialBuild) {
+        java.util.UUID uuid = getPlayerRef().getUuid();
+
+        // Render marker position, text, color, tick labels and sea level line
+        GaugeDisplayTable.Entry entry = isInitialBuild
+            ? gauge.renderAll(displayTable, depth, seaLevelDepth, config.isDecimalEnabled(), config.isSeaLevelDisplayEnabled())
+            : gauge.render(displayTable, depth, seaLevelDepth, direction,
+                config.isDecimalEnabled(), config.isSeaLevelDisplayEnabled(), false);
+
+        if (DepthDiagnostics.shouldLog(DepthDiagnostics.Category.HUD_UPDATE, uuid)) {
+            DepthDiagnostics.log(DepthDiagnostics.Category.HUD_UPDATE, uuid, "[DepthHud] Update for " + uuid
+                + " - depth=" + depth + ", seaLevel=" + seaLevelDepth + ", direction=" + direction + ", isInitialBuild=" + isInitialBuild
+                + " -> " + entry.depthText + " marker " + entry.markerIndex + " color " + entry.markerColor);
         }
     }
 
     /**
-     * Update marker visibility - show only the active marker at the specified position
+     * Routes gauge property writes to a UICommandBuilder, keeping numeric properties typed
      */
-    private void updateMarkerVisibility(UICommandBuilder builder, int activeIndex, String depthText, String color) {
-        for (int i = 0; i <= 59; i++) {
-            if (i == activeIndex) {
-                builder.set("#Marker" + i + ".Text", depthText);
-                builder.set("#Marker" + i + ".Style.TextColor", color);
-            } else {
-                builder.set("#Marker" + i + ".Text", "");
-            }
+    private static final class BuilderSink implements HudPropertyState.Sink {
+
+        private final UICommandBuilder builder;
+
+        private BuilderSink(UICommandBuilder builder) {
+            this.builder = builder;
+        }
+
+        @Override
+        public void set(String selector, String value) {
+            builder.set(selector, value);
+        }
+
+        @Override
+        public void set(String selector, int value) {
+            builder.set(selector, value);
         }
     }
 
@@ -0,0 +1,112 @@
+package com.underwaterdepth;
+
+/**
+ * Depth and sea level math used by the depth update loop
+ * Pure functions with no server types (1 block = 1 meter)
+ *
+ * @author BeyondSmash
+ */
+public final class DepthMath {
+
+    // Height of a surface swimmer's feet below the water surface
+    private static final float SURFACE_FEET_OFFSET = 1.0f;
+
+    // Smallest depth change that can alter the display
+    public static final float DECIMAL_DISPLAY_STEP = 0.1f;        // Decimal depth text
+    public static final float COMPACT_DISPLAY_STEP = 1.0f;        // Whole-meter compact label
+
+    // Below this vertical speed (m/s) a diver is treated as hovering
+    private static final float MIN_TRACKED_SPEED = 0.05f;
+
+    // Evaluation cadence for divers, in depth passes (floor for fast movers, ceiling for idle divers)
+    public static final int MIN_EVAL_INTERVAL_PASSES = 1;
+    public static final int MAX_EVAL_INTERVAL_PASSES = 5;
+
+    private DepthMath() {
+    }
+
+    /**
+     * Local depth relative to the water entry point
+     * Positive = below entry (deeper), Negative = above entry (shallower)
+     */
+    public static float localDepth(double entryY, double playerY) {
+        return (float) (entryY - playerY);
+    }
+
+    /**
+     * Depth below a water surface (or sea level) plane
+     * A player swimming at the surface reads ~0m, like the entry-point depth
+     */
+    public static float depthBelow(float surfaceY, double playerY) {
+        return (float) (surfaceY - SURFACE_FEET_OFFSET - playerY);
+    }
+
+    /**
+     * Snap depths within snap meters of the entry point to 0m (surfaceSnap in the server config)
+     * This prevents showing "-1m" or "+1m" when bobbing at the surface
+     */
+    public static float snapToSurface(float depth, float snap) {
+        return Math.abs(depth) < snap ? 0.0f : depth;
+    }
+
+    /**
+     * Check if a depth is at least threshold meters from the entry point (showThreshold in the server config)
+     */
+    public static boolean isVisibleDepth(float depth, float threshold) {
+        return Math.abs(depth) >= threshold;
+    }
+
+    /**
+     * Water surface estimated from the entry point
+     * Rounds entry Y up to the next whole number, then adds 1.0 for surface compensation
+     * Example: 113.6 -> ceil(113.6) = 114.0 -> 114.0 + 1.0 = 115.0
+     */
+    public static float roundedSurface(double entryY) {
+        return (float) Math.ceil(entryY) + 1.0f;
+    }
+
+    /**
+     * Depth relative to sea level - distance from sea level to the surface, adjusted by local depth
+     */
+    public static float seaLevelDepth(double entryY, float localDepth, int seaLevel) {
+        return (seaLevel - roundedSurface(entryY)) + localDepth;
+    }
+
+    /**
+     * Smallest depth change that can alter what the player sees, for a gauge whose
+     * marker moves one position every markerStep meters
+     */
+    public static float displayStep(boolean compact, boolean decimalEnabled, float markerStep) {
+        if (compact) {
+            return COMPACT_DISPLAY_STEP;
+        }
+        return decimalEnabled ? DECIMAL_DISPLAY_STEP : markerStep;
+    }
+
+    /**
+     * Blend a new vertical speed measurement into the smoothed speed (m/s, positive = descending)
+     */
+    public static float smoothVelocity(float smoothed, float previousDepth, float depth, float seconds) {
+        if (seconds <= 0f) {
+            return smoothed;
+        }
+        return 0.5f * ((depth - previousDepth) / seconds) + 0.5f * smoothed;
+    }
+
+    /**
+     * Predict how many passes until the displayed depth can change, from the vertical speed
+     * Distance to the next display step boundary in the direction of travel, divided by speed,
+     * bounded by MIN_EVAL_INTERVAL_PASSES and MAX_EVAL_INTERVAL_PASSES
+     */
+    public static int evaluationInterval(float depth, float velocity, float displayStep, long passMillis) {
+        int passes = MAX_EVAL_INTERVAL_PASSES;
+        float speed = Math.abs(velocity);
+        if (speed > MIN_TRACKED_SPEED) {
+            float stepIndex = Math.round(depth / displayStep);
+            float boundary = velocity > 0 ? (stepIndex + 0.5f) * displayStep : (stepIndex - 0.5f) * displayStep;
+            float millisToChange = Math.abs(boundary - depth) / speed * 1000f;
+            passes = (int) Math.ceil(millisToChange / passMillis);
+        }
+        return Math.max(MIN_EVAL_INTERVAL_PASSES, Math.min(MAX_EVAL_INTERVAL_PASSES, passes));
+    }
+}
@@ -0,0 +1,176 @@
+package com.underwaterdepth;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runtime metrics for the depth update loop, HUD traffic and settings persistence
+ * All recorders are lock-free and safe to call from any world thread
+ * Exposed through /wdepth stats and the optional OpenMetrics endpoint
+ *
+ * @author BeyondSmash
+ */
+public final class DepthMetrics {
+
+    /**
+     * Sliding one-minute event counter with one-second resolution
+     */
+    public static final class MinuteRate {
+        private final AtomicLongArray counts = new AtomicLongArray(60);
+        private final AtomicLongArray seconds = new AtomicLongArray(60);
+
+        public void increment() {
+            long second = System.nanoTime() / 1_000_000_000L;
+            int index = (int) (second % 60);
+            long stamp = seconds.get(index);
+            if (stamp != second && seconds.compareAndSet(index, stamp, second)) {
+                counts.set(index, 0);
+            }
+            counts.incrementAndGet(index);
+        }
+
+        /**
+         * Events in the last 60 seconds
+         */
+        public long perMinute() {
+            long second = System.nanoTime() / 1_000_000_000L;
+            long total = 0;
+            for (int i = 0; i < 60; i++) {
+                if (second - seconds.get(i) < 60) {
+                    total += counts.get(i);
+                }
+            }
+            return total;
+        }
+    }
+
+    // Depth passes (one per world per 100ms)
+    public static final LatencyHistogram PASS_DURATION = new LatencyHistogram();
+    public static final LongAdder PASSES = new LongAdder();
+
+    // How late passes start after they were due, and passes merged into a late one
+    public static final LatencyHistogram PASS_DELAY = new LatencyHistogram();
+    public static final LongAdder PASSES_COALESCED = new LongAdder();
+
+    // Players seen by passes, how many were dropped by the prefilter (dry and untracked, or HUD off),
+    // and how many were fully evaluated vs skipped by the timing wheel
+    public static final LongAdder PLAYERS_SCANNED = new LongAdder();
+    public static final LongAdder PLAYERS_FILTERED = new LongAdder();
+    public static final LongAdder PLAYERS_EVALUATED = new LongAdder();
+    public static final LongAdder EVALUATIONS_SKIPPED = new LongAdder();
+
+    // DepthHud.updateDepth calls (gauge render only)
+    public static final LatencyHistogram HUD_UPDATE_DURATION = new LatencyHistogram();
+    public static final LongAdder HUD_UPDATES_SKIPPED = new LongAdder();
+
+    // End-of-pass HUD flush (one per world per pass) and the updates it sent
+    public static final LatencyHistogram HUD_FLUSH_DURATION = new LatencyHistogram();
+    public static final LongAdder HUD_UPDATES_SENT = new LongAdder();
+    public static final LongAdder HUD_COMMANDS_SENT = new LongAdder();
+
+    // HUDs still queued after their world's last flush (flush cap or budget) - a gauge, not a count
+    public static final AtomicLong HUD_FLUSH_BACKLOG = new AtomicLong();
+
+    // MultipleHUD show/hide calls
+    public static final LatencyHistogram HUD_SHOW_DURATION = new LatencyHistogram();
+    public static final LatencyHistogram HUD_HIDE_DURATION = new LatencyHistogram();
+    public static final MinuteRate HUD_SHOWS = new MinuteRate();
+    public static final MinuteRate HUD_HIDES = new MinuteRate();
+    public static final LongAdder HUD_SHOWS_TOTAL = new LongAdder();
+    public static final LongAdder HUD_HIDES_TOTAL = new LongAdder();
+
+    // Water surface lookups (cache hits vs column scans, and blocks read by scans)
+    public static final LongAdder SURFACE_CACHE_HITS = new LongAdder();
+    public static final LongAdder SURFACE_SCANS = new LongAdder();
+    public static final LongAdder SURFACE_BLOCKS_SCANNED = new LongAdder();
+
+    // Player settings changes and the (coalesced) writes they caused
+    public static final LongAdder SETTINGS_CHANGES = new LongAdder();
+    public static final LatencyHistogram SETTINGS_WRITE_DURATION = new LatencyHistogram();
+
+    private DepthMetrics() {
+    }
+
+    /**
+     * Record a gauge render - unchanged renders never reach the flush
+     */
+    public static void recordHudRender(long nanos, boolean changed) {
+        HUD_UPDATE_DURATION.record(nanos);
+        if (!changed) {
+            HUD_UPDATES_SKIPPED.increment();
+        }
+    }
+
+    /**
+     * Record a HUD update that was sent with the given number of property commands
+     */
+    public static void recordHudSent(int commands) {
+        HUD_UPDATES_SENT.increment();
+        HUD_COMMANDS_SENT.add(commands);
+    }
+
+    public static void recordHudShow(long nanos) {
+        HUD_SHOW_DURATION.record(nanos);
+        HUD_SHOWS.increment();
+        HUD_SHOWS_TOTAL.increment();
+    }
+
+    public static void recordHudHide(long nanos) {
+        HUD_HIDE_DURATION.record(nanos);
+        HUD_HIDES.increment();
+        HUD_HIDES_TOTAL.increment();
+    }
+
+    /**
+     * Average property commands per sent HUD update
+     */
+    public static double getCommandsPerUpdate() {
+        long updates = HUD_UPDATES_SENT.sum();
+        return updates == 0 ? 0 : (double) HUD_COMMANDS_SENT.sum() / updates;
+    }
+
+    /**
+     * Render all metrics in OpenMetrics text format
+     */
+    public static String toOpenMetrics() {
+        StringBuilder out = new StringBuilder(4096);
+        PASS_DURATION.writeOpenMetrics(out, "waterdepthgauge_pass_duration_seconds", "Duration of one depth pass over a world");
+        counter(out, "waterdepthgauge_passes", "Depth passes run", PASSES.sum());
+        PASS_DELAY.writeOpenMetrics(out, "waterdepthgauge_pass_delay_seconds", "Delay between a depth pass being due and starting");
+        counter(out, "waterdepthgauge_passes_coalesced", "Missed depth passes merged into a late pass", PASSES_COALESCED.sum());
+        counter(out, "waterdepthgauge_players_scanned", "Players visited by depth passes", PLAYERS_SCANNED.sum());
+        counter(out, "waterdepthgauge_players_filtered", "Players dropped by the prefilter (dry and untracked, or HUD off)", PLAYERS_FILTERED.sum());
+        counter(out, "waterdepthgauge_players_evaluated", "Divers fully evaluated", PLAYERS_EVALUATED.sum());
+        counter(out, "waterdepthgauge_evaluations_skipped", "Diver evaluations skipped by the timing wheel", EVALUATIONS_SKIPPED.sum());
+        HUD_UPDATE_DURATION.writeOpenMetrics(out, "waterdepthgauge_hud_update_duration_seconds", "Duration of DepthHud.updateDepth (gauge render)");
+        HUD_FLUSH_DURATION.writeOpenMetrics(out, "waterdepthgauge_hud_flush_duration_seconds", "Duration of the end-of-pass HUD flush of one world");
+        gauge(out, "waterdepthgauge_hud_flush_backlog", "HUDs waiting for a later pass after the last flush (flush cap or budget)", HUD_FLUSH_BACKLOG.get());
+        counter(out, "waterdepthgauge_hud_updates_sent", "HUD updates sent to clients", HUD_UPDATES_SENT.sum());
+        counter(out, "waterdepthgauge_hud_updates_skipped", "HUD updates skipped because nothing changed", HUD_UPDATES_SKIPPED.sum());
+        counter(out, "waterdepthgauge_hud_commands_sent", "UI property commands sent to clients", HUD_COMMANDS_SENT.sum());
+        HUD_SHOW_DURATION.writeOpenMetrics(out, "waterdepthgauge_hud_show_duration_seconds", "Duration of MultipleHUD.setCustomHud");
+        HUD_HIDE_DURATION.writeOpenMetrics(out, "waterdepthgauge_hud_hide_duration_seconds", "Duration of MultipleHUD.hideCustomHud");
+        counter(out, "waterdepthgauge_hud_shows", "HUDs shown", HUD_SHOWS_TOTAL.sum());
+        counter(out, "waterdepthgauge_hud_hides", "HUDs hidden", HUD_HIDES_TOTAL.sum());
+        counter(out, "waterdepthgauge_surface_cache_hits", "Water surface lookups served from the column cache", SURFACE_CACHE_HITS.sum());
+        counter(out, "waterdepthgauge_surface_scans", "Water surface lookups that scanned blocks", SURFACE_SCANS.sum());
+        counter(out, "waterdepthgauge_surface_blocks_scanned", "Blocks read by water surface scans", SURFACE_BLOCKS_SCANNED.sum());
+        counter(out, "waterdepthgauge_settings_changes", "Player settings changes queued for saving", SETTINGS_CHANGES.sum());
+        SETTINGS_WRITE_DURATION.writeOpenMetrics(out, "waterdepthgauge_settings_write_duration_seconds", "Duration of player settings writes");
+        out.append("# EOF\n");
+        return out.toString();
+    }
+
+    private static void gauge(StringBuilder out, String name, String help, long value) {
+        out.append("# TYPE ").append(name).append(" gauge\n");
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append(name).append(' ').append(value).append('\n');
+    }
+
+    private static void counter(StringBuilder out, String name, String help, long value) {
+        out.append("# TYPE ").append(name).append(" counter\n");
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append(name).append("_total ").append(value).append('\n');
+    }
+}
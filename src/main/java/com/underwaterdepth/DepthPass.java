@@ -0,0 +1,582 @@
+package com.underwaterdepth;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The per-world depth pass: decides who is diving, how deep, and what their HUD shows
+ * Knows nothing about the server - players arrive in DiverBatches and HUDs go through a
+ * HudSink, so the same pass runs in the plugin, the load simulator and tests
+ *
+ * One instance serves every world; each world's pass runs on that world's thread.
+ *
+ * @param <P> Player handle handed out by the DiverBatch and passed to the HudSink
+ * @author BeyondSmash
+ */
+public class DepthPass<P> {
+
+    /**
+     * Receives every finished dive deep enough to have shown the HUD
+     */
+    public interface DiveListener {
+        void diveFinished(UUID uuid, String username, float maxDepth, long durationMillis, String worldName);
+    }
+
+    private static final Logger LOGGER = Logger.getLogger("UnderwaterDepth");
+
+    // Handoffs not claimed within this time are dropped (player never showed up in another world)
+    private static final long HANDOFF_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    // Most HUD updates sent per world per pass - the rest wait (and merge) until the next pass
+    private static final int MAX_HUD_FLUSHES_PER_PASS = 256;
+
+    private final HudSink<P> hudSink;
+    private final DiveListener diveListener;
+
+    // Name of the world a player is in now (null if unknown, e.g. mid-transfer)
+    private final Function<P, String> worldLocator;
+
+    // Dive state of players that just left a world, by the world they joined and waiting to be
+    // claimed there - each world only ever looks at its own entry
+    private final Map<String, Map<UUID, DiveState>> worldHandoffs = new ConcurrentHashMap<>();
+
+    // HUD updates per second shared by all worlds (replaced when a reload changes the rate)
+    private volatile HudUpdateBudget hudBudget;
+
+    public DepthPass(HudSink<P> hudSink, DiveListener diveListener, Function<P, String> worldLocator,
+                     HudUpdateBudget hudBudget) {
+        this.hudSink = hudSink;
+        this.diveListener = diveListener;
+        this.worldLocator = worldLocator;
+        this.hudBudget = hudBudget;
+    }
+
+    public HudUpdateBudget getHudBudget() {
+        return hudBudget;
+    }
+
+    public void setHudBudget(HudUpdateBudget hudBudget) {
+        this.hudBudget = hudBudget;
+    }
+
+    /**
+     * Update depth HUD for every player in a batch
+     * Called on the world thread once per depth pass, for every batch of the world
+     *
+     * Players are prefiltered on the engine's in-fluid flag before anything else is read:
+     * a dry player nobody tracks costs one component read (or two when the world has divers),
+     * and players with the HUD turned off drop out before the dive state lookup. Only the
+     * remaining candidates have their player handle and position read.
+     */
+    public void updateDivers(WorldDepthState worldState, DiverBatch<P> batch, long nowNanos) {
+        // Settings changed since the last batch - players who turned the HUD off leave the candidate set
+        if (worldState.updateConfigChangeCount(PlayerConfig.getChangeCount())) {
+            releaseDisabledDivers(worldState);
+        }
+
+        // Nobody tracked in this world and nobody arriving from another one - only wet players matter
+        Map<UUID, DiveState> arrivals = worldHandoffs.get(worldState.getName());
+        boolean anyArriving = arrivals != null && !arrivals.isEmpty();
+        boolean anyTracked = worldState.getDiverCount() > 0 || anyArriving;
+
+        int filtered = 0;
+        for (int i = 0; i < batch.size(); i++) {
+            boolean isUnderwater = batch.isInFluid(i);
+            if (!isUnderwater && !anyTracked) {
+                filtered++;
+                continue;
+            }
+
+            // HUD turned off - released above, nothing to track until it is turned back on
+            UUID playerUuid = batch.getUuid(i);
+            if (playerUuid == null || PlayerConfig.isHudDisabled(playerUuid)) {
+                filtered++;
+                continue;
+            }
+
+            // Players never seen in water have no state - nothing to do until they get wet
+            DiveState state = worldState.getDiver(playerUuid);
+            if (state == null) {
+                if (!isUnderwater && (!anyArriving || !arrivals.containsKey(playerUuid))) {
+                    filtered++;
+                    continue;
+                }
+                state = claimDiveState(worldState, playerUuid);
+            }
+
+            P player = batch.getPlayer(i);
+            if (player != null) {
+                updateDiver(worldState, state, player, batch, i, isUnderwater, nowNanos);
+            }
+        }
+        DepthMetrics.PLAYERS_FILTERED.add(filtered);
+    }
+
+    /**
+     * Release every diver of a world whose player turned the HUD off
+     * (/wdepth on publishes a new snapshot, so the player is picked up again when next in water)
+     */
+    private void releaseDisabledDivers(WorldDepthState worldState) {
+        // Walk backwards so swap-removal never skips an entry
+        for (int i = worldState.getDiverCount() - 1; i >= 0; i--) {
+            DiveState state = worldState.getDiverAt(i);
+            if (PlayerConfig.isHudDisabled(state.getUuid())) {
+                releaseDisabledDiver(worldState, state);
+            }
+        }
+    }
+
+    /**
+     * Hide a disabled player's HUD, drop the dive in progress and stop tracking them
+     */
+    @SuppressWarnings("unchecked")
+    private void releaseDisabledDiver(WorldDepthState worldState, DiveState state) {
+        if (state.getHud() != null) {
+            hideDepthHud((P) state.getPlayer(), state);
+        }
+        state.getTelemetry().end();
+        state.clearEntryY();
+        state.setUnderwater(false);
+        worldState.releaseDiver(state);
+    }
+
+    /**
+     * Finish a depth pass - send this pass's HUD updates in one batch and
+     * hand off players that left the world since the last pass
+     * Called on the world thread after the last batch of the pass
+     */
+    public void finishPass(WorldDepthState worldState, long nowNanos) {
+        flushHudUpdates(worldState, nowNanos);
+
+        // Park players that left with the world they went to; when that isn't known yet they wait
+        // in this world's entry and are routed on once it is
+        String worldName = worldState.getName();
+        worldState.sweepDeparted(state -> {
+            state.setHandoffNanos(nowNanos);
+            handOff(locate(state, worldName), state);
+        });
+
+        // Crowded world - switch everyone to the compact profile until it empties out
+        boolean wasForced = worldState.isCompactForced();
+        if (worldState.updateCompactForced(ServerConfig.get().getCompactThreshold()) != wasForced) {
+            LOGGER.info(String.format("Compact HUD profile %s in world %s (%d visible HUDs)",
+                worldState.isCompactForced() ? "forced" : "released", worldState.getName(), worldState.getVisibleHudCount()));
+        }
+
+        // Route this world's unclaimed arrivals that turned up elsewhere, and drop the ones nobody
+        // claimed in time (player left without joining another world)
+        Map<UUID, DiveState> arrivals = worldHandoffs.get(worldName);
+        if (arrivals != null && !arrivals.isEmpty()) {
+            arrivals.values().removeIf(state -> {
+                if (nowNanos - state.getHandoffNanos() > HANDOFF_TIMEOUT_NANOS) {
+                    return true;
+                }
+                String target = locate(state, worldName);
+                if (target.equals(worldName)) {
+                    return false;
+                }
+                handOff(target, state);
+                return true;
+            });
+        }
+    }
+
+    /**
+     * World a departed player is in now - the given world while it can't be told
+     */
+    @SuppressWarnings("unchecked")
+    private String locate(DiveState state, String fallback) {
+        P player = (P) state.getPlayer();
+        String target = player != null ? worldLocator.apply(player) : null;
+        return target != null ? target : fallback;
+    }
+
+    private void handOff(String worldName, DiveState state) {
+        worldHandoffs.computeIfAbsent(worldName, k -> new ConcurrentHashMap<>()).put(state.getUuid(), state);
+    }
+
+    /**
+     * Build and send every HUD update recorded during the pass
+     */
+    private void flushHudUpdates(WorldDepthState worldState, long nowNanos) {
+        // Take this world's share of the server-wide budget - also when idle, so the shares
+        // follow the backlog of every world; unused tokens go back
+        HudUpdateBudget hudBudget = this.hudBudget;
+        int pending = worldState.getPendingHudCount();
+        int granted = hudBudget.acquire(worldState.getName(), Math.min(pending, MAX_HUD_FLUSHES_PER_PASS), nowNanos);
+        long start = System.nanoTime();
+        int flushed = worldState.flushHuds(granted);
+        hudBudget.release(worldState.getName(), granted - flushed);
+        if (pending > 0) {
+            DepthMetrics.HUD_FLUSH_DURATION.record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Get or create a player's dive state in a world partition
+     * Picks up state handed off by the world the player just left, if any
+     * Must be called on the world's thread
+     */
+    public DiveState claimDiveState(WorldDepthState worldState, UUID uuid) {
+        DiveState state = worldState.getDiver(uuid);
+        if (state == null) {
+            Map<UUID, DiveState> arrivals = worldHandoffs.get(worldState.getName());
+            state = arrivals != null ? arrivals.remove(uuid) : null;
+            if (state == null) {
+                state = new DiveState(uuid);
+            } else {
+                // The handle belonged to the old world's entity - the next update sets the new one
+                state.setPlayer(null);
+            }
+            state.setLastSeenPass(worldState.getPassNumber());
+            worldState.putDiver(state);
+        }
+        return state;
+    }
+
+    /**
+     * Forget a player waiting to be claimed by another world (disconnect) - safe from any thread
+     */
+    public void dropHandoff(UUID uuid) {
+        for (Map<UUID, DiveState> arrivals : worldHandoffs.values()) {
+            arrivals.remove(uuid);
+        }
+    }
+
+    public void clearHandoffs() {
+        worldHandoffs.clear();
+    }
+
+    /**
+     * Update depth HUD for a tracked player whose HUD isn't turned off
+     */
+    private void updateDiver(WorldDepthState worldState, DiveState state, P player, DiverBatch<P> batch, int index,
+                             boolean isUnderwater, long nowNanos) {
+        try {
+            UUID playerUuid = state.getUuid();
+            state.setLastSeenPass(worldState.getPassNumber());
+            state.setPlayer(player);
+            double playerY = batch.getY(index);
+
+            // One config snapshot for the whole update, and the world's cached profile
+            ServerConfig serverConfig = ServerConfig.get();
+            WorldProfile profile = worldState.getProfile();
+
+            // Player's cached settings snapshot - a new version means they changed since the
+            // last update, so evaluate this pass and the HUD shows the change right away
+            PlayerConfig config = state.getConfig();
+            if (config.getVersion() != state.getAppliedConfigVersion()) {
+                state.setAppliedConfigVersion(config.getVersion());
+                resetEvaluation(worldState, state);
+            }
+
+            // Turned off after this batch's prefilter - leave the candidate set right away
+            if (!config.isEnabled()) {
+                releaseDisabledDiver(worldState, state);
+                return;
+            }
+
+            boolean wasUnderwater = state.isUnderwater();
+
+            // Player just entered water - record entry point but don't show HUD yet
+            if (isUnderwater && !wasUnderwater) {
+                // Record water entry Y coordinate and start a new dive
+                state.setEntryY(playerY);
+                state.getTelemetry().start(nowNanos);
+                resetEvaluation(worldState, state);
+                if (DepthDiagnostics.shouldLog(DepthDiagnostics.Category.WATER_STATE, playerUuid)) {
+                    DepthDiagnostics.log(DepthDiagnostics.Category.WATER_STATE, playerUuid, "Player " + playerUuid + " entered water at Y=" + playerY + " - tracking depth");
+                }
+            }
+            // Player just surfaced - hide HUD and clear entry point
+            else if (!isUnderwater && wasUnderwater) {
+                hideDepthHud(player, state);
+                state.clearEntryY(); // Clear entry point
+                resetEvaluation(worldState, state);
+                DiveTelemetry telemetry = state.getTelemetry();
+                telemetry.end();
+                recordDive(worldState, state, batch.getUsername(index), telemetry, serverConfig);
+                if (DepthDiagnostics.shouldLog(DepthDiagnostics.Category.WATER_STATE, playerUuid)) {
+                    DepthDiagnostics.log(DepthDiagnostics.Category.WATER_STATE, playerUuid, String.format(
+                        "Player %s surfaced - hiding depth HUD | dive: max %.1fm, %.1fs, descent %.2f m/s, ascent %.2f m/s",
+                        playerUuid, telemetry.getMaxDepth(), telemetry.getDurationNanos() / 1_000_000_000.0,
+                        telemetry.getDescentRate(), telemetry.getAscentRate()));
+                }
+
+                // Back on dry land - leave the candidate set until the next dive
+                worldState.releaseDiver(state);
+                return;
+            }
+            // Player is underwater - check depth and show/update HUD if needed
+            // Only when the timing wheel says the display may have changed, or the
+            // player already moved a full display step since the last evaluation
+            else if (isUnderwater) {
+                float displayStep = DepthMath.displayStep(isCompact(worldState, config), config.isDecimalEnabled(), profile.getMarkerStep());
+                if (state.isEvaluationDue() || Math.abs(playerY - state.getLastEvalY()) >= displayStep) {
+                    DepthMetrics.PLAYERS_EVALUATED.increment();
+                    float depth = updateDepthWithThreshold(worldState, player, state, batch.getX(index), playerY,
+                        batch.getZ(index), serverConfig, profile, nowNanos);
+                    scheduleNextEvaluation(worldState, state, depth, playerY, displayStep, profile, nowNanos);
+                } else {
+                    DepthMetrics.EVALUATIONS_SKIPPED.increment();
+                }
+            }
+
+            // Update state tracking
+            state.setUnderwater(isUnderwater);
+
+        } catch (Exception e) {
+            LOGGER.log(Level.WARNING, "Error updating player depth: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Check if a player gets the compact HUD profile (chosen, forced in a crowded world,
+     * or the only variant of the world's profile)
+     */
+    private static boolean isCompact(WorldDepthState worldState, PlayerConfig config) {
+        return config.isCompactEnabled() || worldState.isCompactForced() || worldState.getProfile().isCompactOnly();
+    }
+
+    /**
+     * Hand a finished dive to the listener (lifetime statistics and leaderboards)
+     * Only dives deep enough to have shown the HUD count
+     */
+    private void recordDive(WorldDepthState worldState, DiveState state, String username, DiveTelemetry telemetry,
+                            ServerConfig serverConfig) {
+        float maxDepth = telemetry.getMaxDepth();
+        if (!DepthMath.isVisibleDepth(maxDepth, serverConfig.getShowThreshold())) {
+            return;
+        }
+        diveListener.diveFinished(state.getUuid(), username, maxDepth,
+            TimeUnit.NANOSECONDS.toMillis(telemetry.getDurationNanos()), worldState.getName());
+    }
+
+    /**
+     * Schedule the next full evaluation of a diver on the world's timing wheel
+     * Predicts when the displayed depth can next change from the diver's vertical speed,
+     * bounded by DepthMath.MIN_EVAL_INTERVAL_PASSES and MAX_EVAL_INTERVAL_PASSES
+     *
+     * @param depth Depth the gauge was just given (surface depth, or entry depth as a fallback)
+     */
+    private void scheduleNextEvaluation(WorldDepthState worldState, DiveState state, float depth, double playerY,
+                                        float displayStep, WorldProfile profile, long nowNanos) {
+        // Smoothed vertical speed since the last evaluation
+        if (state.hasLastEvaluation()) {
+            float seconds = (nowNanos - state.getLastEvalNanos()) / 1_000_000_000f;
+            state.setDepthVelocity(DepthMath.smoothVelocity(state.getDepthVelocity(), state.getLastEvalDepth(), depth, seconds));
+        }
+        state.setLastEvaluation(depth, playerY, nowNanos);
+        state.setEvaluationDue(false);
+
+        int passes = DepthMath.evaluationInterval(depth, state.getDepthVelocity(), displayStep, profile.getUpdatePeriodMillis());
+        worldState.getWheel().schedule(state, passes);
+    }
+
+    /**
+     * Drop a diver's schedule so the next underwater update evaluates immediately
+     */
+    private static void resetEvaluation(WorldDepthState worldState, DiveState state) {
+        worldState.getWheel().cancel(state);
+        state.setEvaluationDue(true);
+        state.clearLastEvaluation();
+    }
+
+    /**
+     * Show the depth HUD for a player
+     */
+    private void showDepthHud(P player, DiveState state, float initialDepth, float initialSeaLevelDepth,
+                              GaugeLayout layout, GaugeDisplayTable displayTable, PlayerConfig config) {
+        UUID uuid = state.getUuid();
+
+        // Create new HUD if doesn't exist
+        if (state.getHud() == null) {
+            try {
+                long start = System.nanoTime();
+                GaugeHud hud = hudSink.show(player, initialDepth, initialSeaLevelDepth, layout, displayTable, config);
+                DepthMetrics.recordHudShow(System.nanoTime() - start);
+
+                // CRITICAL: Only track the HUD AFTER successful registration
+                // This prevents "can't rejoin" issue if showing it failed
+                if (hud == null) {
+                    return;
+                }
+                state.setHud(hud);
+
+                if (DepthDiagnostics.shouldLog(DepthDiagnostics.Category.HUD_VISIBILITY, uuid)) {
+                    DepthDiagnostics.log(DepthDiagnostics.Category.HUD_VISIBILITY, uuid, "[SHOW HUD] Player " + uuid
+                        + " - HUD shown at depth: " + initialDepth + "m, sea level: " + initialSeaLevelDepth + "m");
+                }
+            } catch (Exception e) {
+                // Don't track the HUD if show failed - prevents crash loop on rejoin
+                LOGGER.log(Level.SEVERE, "[SHOW HUD] FAILED to show HUD for player " + uuid
+                    + " - player will not see depth meter but won't be kicked", e);
+            }
+        }
+    }
+
+    /**
+     * Hide the depth HUD for a player
+     */
+    private void hideDepthHud(P player, DiveState state) {
+        UUID uuid = state.getUuid();
+        try {
+            GaugeHud hud = state.getHud();
+            state.setHud(null);
+
+            if (hud != null) {
+                // Drop any update still waiting for the end-of-pass flush
+                hud.takeFlushQueued();
+
+                // No handle yet (claimed after a handoff) - the HUD went with the old world's entity
+                if (player != null) {
+                    long start = System.nanoTime();
+                    hudSink.hide(player, hud);
+                    DepthMetrics.recordHudHide(System.nanoTime() - start);
+                }
+                if (DepthDiagnostics.shouldLog(DepthDiagnostics.Category.HUD_VISIBILITY, uuid)) {
+                    DepthDiagnostics.log(DepthDiagnostics.Category.HUD_VISIBILITY, uuid, "[HIDE HUD] Player " + uuid + " - HUD hidden");
+                }
+            } else if (DepthDiagnostics.shouldLog(DepthDiagnostics.Category.HUD_VISIBILITY, uuid)) {
+                DepthDiagnostics.log(DepthDiagnostics.Category.HUD_VISIBILITY, uuid, "[HIDE HUD] Player " + uuid + " - No active HUD to hide");
+            }
+        } catch (Exception e) {
+            LOGGER.log(Level.WARNING, "Error hiding HUD for player " + uuid + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Update depth with threshold check - only show HUD if depth >= 0.5m or <= -0.5m (showThreshold)
+     * This prevents HUD from showing during surface swimming
+     *
+     * @return Depth the gauge is measured with, before surface snapping (for scheduling)
+     */
+    private float updateDepthWithThreshold(WorldDepthState worldState, P player, DiveState state,
+                                          double playerX, double playerY, double playerZ, ServerConfig serverConfig,
+                                          WorldProfile profile, long nowNanos) {
+        // Measure from the real water surface above the player when it can be found
+        float surfaceY = worldState.getSurfaceFinder().findSurface(playerX, playerY, playerZ, nowNanos);
+        boolean surfaceKnown = !Float.isNaN(surfaceY);
+
+        // Calculate depth below the surface, or relative to the water entry point as a fallback
+        // (a diver can't be above the surface they swim in - bobbing reads 0m, not -1m)
+        float measuredDepth = surfaceKnown ? Math.max(0f, DepthMath.depthBelow(surfaceY, playerY)) : calculateDepth(state, playerY);
+
+        // If very close to the surface (within 0.3m by default), treat as surface (0m)
+        // This prevents showing "-1m" or "+1m" when bobbing at the surface
+        float depth = DepthMath.snapToSurface(measuredDepth, serverConfig.getSurfaceSnap());
+
+        // Check if depth meets threshold (≥0.5m below OR ≥0.5m above entry point by default)
+        boolean shouldShowHud = DepthMath.isVisibleDepth(depth, serverConfig.getShowThreshold());
+
+        GaugeHud hud = state.getHud();
+
+        if (shouldShowHud) {
+            float seaLevelDepth = 0.0f;
+            UUID uuid = state.getUuid();
+            if (surfaceKnown) {
+                // Real surface found - sea level depth comes straight from the player's Y
+                seaLevelDepth = DepthMath.depthBelow(profile.getSeaLevel(), playerY);
+
+                if (DepthDiagnostics.shouldLog(DepthDiagnostics.Category.SEA_LEVEL, uuid)) {
+                    DepthDiagnostics.log(DepthDiagnostics.Category.SEA_LEVEL, uuid, String.format(
+                        "[SEA LEVEL] Player %s | Surface Y: %.1f | Current Y: %.3f | Local Depth: %.1f | Sea Level Depth: %.1f",
+                        uuid, surfaceY, playerY, depth, seaLevelDepth
+                    ));
+                }
+            } else if (state.hasEntryY()) {
+                // Fallback: estimate the surface from the water entry point
+                // This gives clean whole numbers (e.g., Y=113.6 rounds to 114, shows as "1m below sea level")
+                double entryY = state.getEntryY();
+
+                // Round up entry Y to next whole number (ceiling), then add 1.0 for surface compensation
+                // Example: 113.6 -> ceil(113.6) = 114.0 -> 114.0 + 1.0 = 115.0
+                float roundedSurface = DepthMath.roundedSurface(entryY);
+                // Calculate distance from sea level, then adjust by local depth
+                seaLevelDepth = DepthMath.seaLevelDepth(entryY, depth, profile.getSeaLevel());
+
+                // Detailed logging for sea level calculation (only formatted when enabled)
+                if (DepthDiagnostics.shouldLog(DepthDiagnostics.Category.SEA_LEVEL, uuid)) {
+                    DepthDiagnostics.log(DepthDiagnostics.Category.SEA_LEVEL, uuid, String.format(
+                        "[SEA LEVEL] Player %s | Entry Y: %.3f | Rounded Surface: %.1f (ceil+1) | Current Y: %.3f | Local Depth: %.1f | Sea Level Depth: %.1f",
+                        uuid, entryY, roundedSurface, playerY, depth, seaLevelDepth
+                    ));
+                }
+            }
+
+            // MISMATCH FIX: Hide HUD and recalibrate when the estimated sea level depth is 0m
+            // This prevents showing misleading depths like -1.2m when at surface
+            // (not needed with a real surface - lakes can sit right at sea level)
+            if (!surfaceKnown && Math.round(seaLevelDepth) == 0) {
+                // Hide HUD since we're at surface
+                if (hud != null) {
+                    hideDepthHud(player, state);
+                }
+                return measuredDepth;
+            }
+
+            // Record the sample - direction (rising/descending) comes from the filtered dive telemetry
+            DiveTelemetry telemetry = state.getTelemetry();
+            telemetry.addSample(nowNanos, depth, serverConfig.getDirectionStartSpeed(), serverConfig.getDirectionStopSpeed());
+            int direction = telemetry.getDirection(); // 0 = stationary, 1 = descending, -1 = rising
+
+            // Profile changed (player toggled compact, the world got crowded, or a reload switched
+            // the gauge layout) - rebuild the HUD
+            PlayerConfig config = state.getConfig();
+            boolean compact = isCompact(worldState, config);
+            GaugeLayout layout = compact ? GaugeLayout.COMPACT : profile.getGaugeLayout();
+            if (hud != null && hud.getLayout() != layout) {
+                hideDepthHud(player, state);
+                hud = null;
+            }
+
+            // Show HUD if not already shown
+            if (hud == null) {
+                showDepthHud(player, state, depth, seaLevelDepth, layout, profile.getDisplayTable(), config);
+                hud = state.getHud();
+            }
+
+            // Update HUD with current depth, sea level, and direction (sent at the end of the pass)
+            if (hud != null) {
+                hud.setDisplayTable(profile.getDisplayTable());
+                hud.setConfig(config);
+                hud.updateDepth(depth, seaLevelDepth, direction);
+                hud.setVerticalSpeed(state.getDepthVelocity());
+                if (hud.hasPendingChanges()) {
+                    worldState.queueHudFlush(hud);
+                }
+            }
+        } else {
+            // Hide HUD if showing but depth < 0.5m
+            if (hud != null) {
+                hideDepthHud(player, state);
+            }
+        }
+        return measuredDepth;
+    }
+
+    /**
+     * Calculate player's LOCAL depth relative to water entry point
+     * Returns depth in meters (1 block = 1 meter)
+     *
+     * Positive values = below entry point (going deeper)
+     * Negative values = above entry point (going shallower/surfacing)
+     *
+     * Formula: depth = entryY - currentY
+     */
+    private static float calculateDepth(DiveState state, double playerY) {
+        // Get water entry Y coordinate
+        if (!state.hasEntryY()) {
+            return 0.0f; // No entry point recorded
+        }
+
+        // Calculate LOCAL depth relative to entry point
+        // Positive = below entry (deeper), Negative = above entry (shallower)
+        return DepthMath.localDepth(state.getEntryY(), playerY);
+    }
+}
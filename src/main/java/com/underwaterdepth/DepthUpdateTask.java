@@ -1,29 +1,145 @@
 package com.underwaterdepth;
 
+import com.hypixel.hytale.component.ArchetypeChunk;
+import com.hypixel.hytale.component.CommandBuffer;
+import com.hypixel.hytale.component.Store;
+import com.hypixel.hytale.component.query.Query;
+import com.hypixel.hytale.component.system.tick.TickingSystem;
 import com.hypixel.hytale.server.core.entity.entities.Player;
-import com.hypixel.hytale.server.core.universe.world.World;
-import java.util.Collection;
+import com.hypixel.hytale.server.core.entity.movement.MovementStatesComponent;
+import com.hypixel.hytale.server.core.modules.entity.component.TransformComponent;
+import com.hypixel.hytale.server.core.universe.PlayerRef;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+import java.util.UUID;
+import java.util.function.BiConsumer;
 import java.util.logging.Level;
 
 /**
- * Task that runs periodically to update depth HUD for all underwater players
- * Runs on the world thread to safely access player data
+ * ECS system that updates the depth HUD for all players in a world
+ * Ticks on the world thread together with the world, so player components can be
+ * read straight from the archetype chunks without a scheduler thread or world.execute()
  *
  * @author BeyondSmash
  */
-public class DepthUpdateTask implements Runnable {
+public class DepthUpdateTask extends TickingSystem<EntityStore> {
 
     private final UnderwaterDepthPlugin plugin;
-    private final World world;
 
-    public DepthUpdateTask(UnderwaterDepthPlugin plugin, World world) {
+    // Every player entity carries all four components we need
+    private final Query<EntityStore> query = Query.and(
+        PlayerRef.getComponentType(),
+        Player.getComponentType(),
+        MovementStatesComponent.getComponentType(),
+        TransformComponent.getComponentType()
+    );
+
+    // One reusable chunk visitor per world thread - passes allocate nothing per tick or chunk
+    private final ThreadLocal<ChunkVisitor> visitors;
+
+    public DepthUpdateTask(UnderwaterDepthPlugin plugin) {
         this.plugin = plugin;
-        this.world = world;
+        this.visitors = ThreadLocal.withInitial(() -> new ChunkVisitor(plugin.getDepthPass()));
     }
 
     @Override
-    public void run() {
-        // TODO: Implement when world tick events and player position APIs are available
-        // For MVP, this is a placeholder for future implementation
+    public void tick(float dt, int systemIndex, Store<EntityStore> store) {
+        // Only run a depth pass every update period of the world's profile (~10 Hz by default)
+        WorldDepthState worldState = plugin.getWorldRegistry().get(store.getExternalData().getWorld());
+        if (!worldState.tryStartPass(System.nanoTime(), worldState.getProfile().getUpdatePeriodNanos())) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        ChunkVisitor visitor = visitors.get();
+        try {
+            // Visit every chunk holding player entities in one pass
+            visitor.worldState = worldState;
+            store.forEachChunk(query, visitor);
+
+            // Hand off players that left this world since the last pass
+            plugin.getDepthPass().finishPass(worldState, System.nanoTime());
+
+            DepthMetrics.PASSES.increment();
+            DepthMetrics.PASS_DURATION.record(System.nanoTime() - start);
+        } catch (Exception e) {
+            plugin.getLogger().at(Level.WARNING).withCause(e).log("Error updating players in world %s", worldState.getName());
+        } finally {
+            visitor.worldState = null;
+            worldState.endPass();
+        }
+    }
+
+    /**
+     * Feeds each archetype chunk of the current pass to the depth pass
+     */
+    private static final class ChunkVisitor implements BiConsumer<ArchetypeChunk<EntityStore>, CommandBuffer<EntityStore>> {
+
+        private final DepthPass<PlayerRef> depthPass;
+        private final ChunkDiverBatch batch = new ChunkDiverBatch();
+        private WorldDepthState worldState;
+
+        private ChunkVisitor(DepthPass<PlayerRef> depthPass) {
+            this.depthPass = depthPass;
+        }
+
+        @Override
+        public void accept(ArchetypeChunk<EntityStore> chunk, CommandBuffer<EntityStore> commandBuffer) {
+            DepthMetrics.PLAYERS_SCANNED.add(chunk.size());
+            batch.chunk = chunk;
+            try {
+                depthPass.updateDivers(worldState, batch, System.nanoTime());
+            } finally {
+                batch.chunk = null;
+            }
+        }
+    }
+
+    /**
+     * Thin adapter exposing an archetype chunk as a DiverBatch (reused for every chunk)
+     */
+    private static final class ChunkDiverBatch implements DiverBatch<PlayerRef> {
+
+        private ArchetypeChunk<EntityStore> chunk;
+
+        @Override
+        public int size() {
+            return chunk.size();
+        }
+
+        @Override
+        public UUID getUuid(int index) {
+            PlayerRef playerRef = getPlayer(index);
+            return playerRef != null ? playerRef.getUuid() : null;
+        }
+
+        @Override
+        public PlayerRef getPlayer(int index) {
+            return chunk.getComponent(index, PlayerRef.getComponentType());
+        }
+
+        @Override
+        public String getUsername(int index) {
+            return getPlayer(index).getUsername();
+        }
+
+        @Override
+        public boolean isInFluid(int index) {
+            return chunk.getComponent(index, MovementStatesComponent.getComponentType()).getMovementStates().inFluid;
+        }
+
+        @Override
+        public double getX(int index) {
+            return chunk.getComponent(index, TransformComponent.getComponentType()).getPosition().getX();
+        }
+
+        @Override
+        public double getY(int index) {
+            return chunk.getComponent(index, TransformComponent.getComponentType()).getPosition().getY();
+        }
+
+        @Override
+        public double getZ(int index) {
+            return chunk.getComponent(index, TransformComponent.getComponentType()).getPosition().getZ();
+        }
     }
 }
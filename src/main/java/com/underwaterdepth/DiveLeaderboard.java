@@ -0,0 +1,284 @@
+package com.underwaterdepth;
+
+import com.hypixel.hytale.logger.HytaleLogger;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+/**
+ * Deepest-dive leaderboards, server-wide and per world
+ *
+ * Each board keeps only the top MAX_ENTRIES players (one entry per player, their best dive)
+ * in a sorted set plus a player index, so a finished dive costs O(log K) and no player
+ * records are ever scanned. Boards are saved to a small binary snapshot when they change.
+ * At most MAX_WORLD_BOARDS world boards are kept; the one used least recently is dropped first,
+ * so boards of worlds that no longer exist age out.
+ *
+ * @author BeyondSmash
+ */
+public class DiveLeaderboard {
+
+    public static final String FILE_NAME = "leaderboard.dat";
+
+    // Board holding every world's dives
+    public static final String SERVER_BOARD = "*";
+
+    // Players kept per board
+    public static final int MAX_ENTRIES = 100;
+
+    // World boards kept besides the server board
+    public static final int MAX_WORLD_BOARDS = 64;
+
+    private static final int MAGIC = 0x57444C42; // "WDLB"
+    private static final int VERSION = 1;
+
+    // How often changed boards are written to disk
+    private static final long SAVE_INTERVAL_SECONDS = 60;
+
+    /**
+     * One player's best dive on a board
+     */
+    public static final class Entry {
+        public final UUID uuid;
+        public final String name;
+        public final float depth;
+        public final String world;
+        public final long epochMillis;
+
+        public Entry(UUID uuid, String name, float depth, String world, long epochMillis) {
+            this.uuid = uuid;
+            this.name = name;
+            this.depth = depth;
+            this.world = world;
+            this.epochMillis = epochMillis;
+        }
+    }
+
+    // Deepest first; earlier dive wins a tie, then UUID so distinct players never compare equal
+    private static final Comparator<Entry> RANKING = Comparator
+        .comparingDouble((Entry e) -> -e.depth)
+        .thenComparingLong(e -> e.epochMillis)
+        .thenComparing(e -> e.uuid);
+
+    /**
+     * Bounded top-K board
+     */
+    private static final class Board {
+        private final TreeSet<Entry> ranked = new TreeSet<>(RANKING);
+        private final Map<UUID, Entry> byPlayer = new HashMap<>();
+
+        /**
+         * @return true if the board changed
+         */
+        boolean offer(Entry entry) {
+            Entry current = byPlayer.get(entry.uuid);
+            if (current != null) {
+                // Only a new personal best replaces the player's entry
+                if (entry.depth <= current.depth) {
+                    return false;
+                }
+                ranked.remove(current);
+            } else if (ranked.size() >= MAX_ENTRIES && RANKING.compare(entry, ranked.last()) >= 0) {
+                return false;
+            }
+
+            ranked.add(entry);
+            byPlayer.put(entry.uuid, entry);
+            if (ranked.size() > MAX_ENTRIES) {
+                byPlayer.remove(ranked.pollLast().uuid);
+            }
+            return true;
+        }
+    }
+
+    private final Path file;
+    private final HytaleLogger logger;
+    private final Board serverBoard = new Board();
+
+    // World name -> board, least recently used first (snapshot keeps this order)
+    private final Map<String, Board> worldBoards = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Board> eldest) {
+            return size() > MAX_WORLD_BOARDS;
+        }
+    };
+
+    private boolean dirty = false;
+    private ScheduledExecutorService saver;
+
+    public DiveLeaderboard(Path dataDirectory, HytaleLogger logger) {
+        this.file = dataDirectory.resolve(FILE_NAME);
+        this.logger = logger;
+    }
+
+    /**
+     * Load the snapshot and start the periodic save
+     *
+     * @return false if there was no usable snapshot (new or corrupt leaderboard)
+     */
+    public boolean start() {
+        boolean loaded = load();
+        saver = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "UnderwaterDepth-Leaderboard");
+            thread.setDaemon(true);
+            return thread;
+        });
+        saver.scheduleWithFixedDelay(this::saveIfDirty, SAVE_INTERVAL_SECONDS, SAVE_INTERVAL_SECONDS, TimeUnit.SECONDS);
+        return loaded;
+    }
+
+    /**
+     * A dive ended - offer it to the server board and the world's board
+     * Safe to call from any world thread
+     */
+    public synchronized void recordDive(UUID uuid, String name, float depth, String world, long epochMillis) {
+        Entry entry = new Entry(uuid, name, depth, world, epochMillis);
+        boolean changed = board(SERVER_BOARD).offer(entry);
+        if (world != null) {
+            changed |= board(world).offer(entry);
+        }
+        dirty |= changed;
+    }
+
+    /**
+     * Top n entries of a board, deepest first (empty if the board doesn't exist)
+     */
+    public synchronized List<Entry> top(String boardName, int n) {
+        Board board = SERVER_BOARD.equals(boardName) ? serverBoard : worldBoards.get(boardName);
+        List<Entry> top = new ArrayList<>(Math.min(n, MAX_ENTRIES));
+        if (board != null) {
+            for (Entry entry : board.ranked) {
+                if (top.size() >= n) {
+                    break;
+                }
+                top.add(entry);
+            }
+        }
+        return top;
+    }
+
+    private Board board(String name) {
+        return SERVER_BOARD.equals(name) ? serverBoard : worldBoards.computeIfAbsent(name, k -> new Board());
+    }
+
+    /**
+     * Write the snapshot if any board changed since the last save
+     */
+    public void saveIfDirty() {
+        byte[] snapshot;
+        synchronized (this) {
+            if (!dirty) {
+                return;
+            }
+            try {
+                snapshot = encode();
+            } catch (IOException e) {
+                logger.at(Level.WARNING).log("Failed to encode leaderboard: %s", e.getMessage());
+                return;
+            }
+            dirty = false;
+        }
+
+        try {
+            SettingsPersister.writeAtomically(file, snapshot);
+        } catch (IOException e) {
+            synchronized (this) {
+                dirty = true;
+            }
+            logger.at(Level.WARNING).log("Failed to save leaderboard: %s", e.getMessage());
+        }
+    }
+
+    /**
+     * Stop the periodic save and write any changes
+     */
+    public void shutdown() {
+        if (saver != null) {
+            saver.shutdownNow();
+            try {
+                saver.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        saveIfDirty();
+    }
+
+    /**
+     * Snapshot: magic, version, board count, then per board its name, entry count and entries
+     */
+    private byte[] encode() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(1 + worldBoards.size());
+            writeBoard(out, SERVER_BOARD, serverBoard);
+            for (Map.Entry<String, Board> board : worldBoards.entrySet()) {
+                writeBoard(out, board.getKey(), board.getValue());
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void writeBoard(DataOutputStream out, String name, Board board) throws IOException {
+        out.writeUTF(name);
+        out.writeInt(board.ranked.size());
+        for (Entry entry : board.ranked) {
+            out.writeLong(entry.uuid.getMostSignificantBits());
+            out.writeLong(entry.uuid.getLeastSignificantBits());
+            out.writeUTF(entry.name != null ? entry.name : "");
+            out.writeFloat(entry.depth);
+            out.writeUTF(entry.world != null ? entry.world : "");
+            out.writeLong(entry.epochMillis);
+        }
+    }
+
+    private synchronized boolean load() {
+        if (!Files.exists(file)) {
+            return false;
+        }
+
+        try (InputStream stream = Files.newInputStream(file); DataInputStream in = new DataInputStream(stream)) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("not a leaderboard snapshot");
+            }
+            int boardCount = in.readInt();
+            for (int b = 0; b < boardCount; b++) {
+                Board board = board(in.readUTF());
+                int count = in.readInt();
+                for (int i = 0; i < count; i++) {
+                    UUID uuid = new UUID(in.readLong(), in.readLong());
+                    String name = in.readUTF();
+                    float depth = in.readFloat();
+                    String world = in.readUTF();
+                    long epochMillis = in.readLong();
+                    board.offer(new Entry(uuid, name.isEmpty() ? null : name, depth, world.isEmpty() ? null : world, epochMillis));
+                }
+            }
+            return true;
+        } catch (IOException e) {
+            serverBoard.ranked.clear();
+            serverBoard.byPlayer.clear();
+            worldBoards.clear();
+            logger.at(Level.WARNING).log("Failed to load leaderboard from %s - rebuilding it: %s", file.getFileName(), e.getMessage());
+            return false;
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package com.underwaterdepth;
+
+import java.util.UUID;
+
+/**
+ * All depth tracking state for one player, held in primitive fields
+ * Owned by exactly one WorldDepthState and only touched by that world's thread
+ *
+ * @author BeyondSmash
+ */
+public class DiveState {
+
+    private final UUID uuid;
+
+    // Player handle from the DiverBatch (refreshed on every update, null after a handoff)
+    private Object player;
+
+    // Position in the owning world's candidate index (-1 = not indexed)
+    private int diverIndex = -1;
+
+    // HUD currently shown to the player (null = hidden)
+    private GaugeHud hud;
+
+    // Whether the player was in water on the last update
+    private boolean underwater = false;
+
+    // Player's settings snapshot, the change count it was looked up at, and the
+    // version the last update acted on
+    private PlayerConfig config;
+    private long configChanges = -1;
+    private long appliedConfigVersion;
+
+    // Water entry Y coordinate for local depth calculation
+    private boolean hasEntryY = false;
+    private double entryY;
+
+    // Samples of the current dive - max depth, rates and the direction arrow
+    private final DiveTelemetry telemetry = new DiveTelemetry();
+
+    // Last depth pass of the owning world that saw this player
+    private long lastSeenPass;
+
+    // When this state was handed off to another world (System.nanoTime)
+    private long handoffNanos;
+
+    // Evaluation scheduling (see TimingWheel)
+    private boolean evaluationDue = true;
+    private int wheelSlot = -1;
+    private DiveState wheelPrev;
+    private DiveState wheelNext;
+
+    // Last full evaluation, used to predict when the display changes next
+    private boolean hasLastEvaluation = false;
+    private float lastEvalDepth;
+    private double lastEvalY;
+    private long lastEvalNanos;
+    private float depthVelocity; // m/s, positive = descending
+
+    public DiveState(UUID uuid) {
+        this.uuid = uuid;
+    }
+
+    public UUID getUuid() {
+        return uuid;
+    }
+
+    /**
+     * Player handle the HUD was last shown with - only DepthPass knows its type
+     */
+    public Object getPlayer() {
+        return player;
+    }
+
+    public void setPlayer(Object player) {
+        this.player = player;
+    }
+
+    public int getDiverIndex() {
+        return diverIndex;
+    }
+
+    public void setDiverIndex(int diverIndex) {
+        this.diverIndex = diverIndex;
+    }
+
+    public GaugeHud getHud() {
+        return hud;
+    }
+
+    public void setHud(GaugeHud hud) {
+        this.hud = hud;
+    }
+
+    public boolean isUnderwater() {
+        return underwater;
+    }
+
+    public void setUnderwater(boolean underwater) {
+        this.underwater = underwater;
+    }
+
+    /**
+     * Player's current settings - looked up again only after a change was published
+     */
+    public PlayerConfig getConfig() {
+        long changes = PlayerConfig.getChangeCount();
+        if (changes != configChanges) {
+            config = PlayerConfig.getConfig(uuid);
+            configChanges = changes;
+        }
+        return config;
+    }
+
+    /**
+     * Version of the settings the last update was done with (0 = none yet)
+     */
+    public long getAppliedConfigVersion() {
+        return appliedConfigVersion;
+    }
+
+    public void setAppliedConfigVersion(long appliedConfigVersion) {
+        this.appliedConfigVersion = appliedConfigVersion;
+    }
+
+    public boolean hasEntryY() {
+        return hasEntryY;
+    }
+
+    public double getEntryY() {
+        return entryY;
+    }
+
+    /**
+     * Record the Y coordinate where the player entered the water
+     */
+    public void setEntryY(double entryY) {
+        this.entryY = entryY;
+        this.hasEntryY = true;
+    }
+
+    public void clearEntryY() {
+        this.hasEntryY = false;
+    }
+
+    public DiveTelemetry getTelemetry() {
+        return telemetry;
+    }
+
+    public long getLastSeenPass() {
+        return lastSeenPass;
+    }
+
+    public void setLastSeenPass(long lastSeenPass) {
+        this.lastSeenPass = lastSeenPass;
+    }
+
+    public long getHandoffNanos() {
+        return handoffNanos;
+    }
+
+    public void setHandoffNanos(long handoffNanos) {
+        this.handoffNanos = handoffNanos;
+    }
+
+    public boolean isEvaluationDue() {
+        return evaluationDue;
+    }
+
+    public void setEvaluationDue(boolean evaluationDue) {
+        this.evaluationDue = evaluationDue;
+    }
+
+    public int getWheelSlot() {
+        return wheelSlot;
+    }
+
+    public void setWheelSlot(int wheelSlot) {
+        this.wheelSlot = wheelSlot;
+    }
+
+    public DiveState getWheelPrev() {
+        return wheelPrev;
+    }
+
+    public void setWheelPrev(DiveState wheelPrev) {
+        this.wheelPrev = wheelPrev;
+    }
+
+    public DiveState getWheelNext() {
+        return wheelNext;
+    }
+
+    public void setWheelNext(DiveState wheelNext) {
+        this.wheelNext = wheelNext;
+    }
+
+    public boolean hasLastEvaluation() {
+        return hasLastEvaluation;
+    }
+
+    public float getLastEvalDepth() {
+        return lastEvalDepth;
+    }
+
+    public double getLastEvalY() {
+        return lastEvalY;
+    }
+
+    public long getLastEvalNanos() {
+        return lastEvalNanos;
+    }
+
+    /**
+     * Record a full evaluation of the player's depth
+     */
+    public void setLastEvaluation(float depth, double y, long nanos) {
+        this.lastEvalDepth = depth;
+        this.lastEvalY = y;
+        this.lastEvalNanos = nanos;
+        this.hasLastEvaluation = true;
+    }
+
+    /**
+     * Forget the last evaluation (player left the water)
+     */
+    public void clearLastEvaluation() {
+        this.hasLastEvaluation = false;
+        this.depthVelocity = 0f;
+    }
+
+    public float getDepthVelocity() {
+        return depthVelocity;
+    }
+
+    public void setDepthVelocity(float depthVelocity) {
+        this.depthVelocity = depthVelocity;
+    }
+}
@@ -0,0 +1,279 @@
+package com.underwaterdepth;
+
+import com.hypixel.hytale.logger.HytaleLogger;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+
+/**
+ * Lifetime dive statistics for every player, in a memory-mapped file of fixed-size slots
+ *
+ * Recording a dive writes a few primitives straight into the player's slot - no objects,
+ * no serialization and no file I/O on the calling thread. The OS writes dirty pages back on
+ * its own; a background thread forces them to disk every FLUSH_INTERVAL_SECONDS and on shutdown.
+ *
+ * File layout (big endian):
+ *   header  magic, version, slot size, capacity, used slots
+ *   slot    UUID (2 longs), deepest dive (float), dive count (int),
+ *           total underwater millis (long), last dive epoch millis (long)
+ *
+ * @author BeyondSmash
+ */
+public class DiveStatsStore {
+
+    public static final String FILE_NAME = "dive_stats.dat";
+
+    private static final int MAGIC = 0x57444753; // "WDGS"
+    private static final int VERSION = 1;
+
+    private static final int HEADER_SIZE = 32;
+    private static final int HEADER_CAPACITY = 12;
+    private static final int HEADER_USED = 16;
+
+    private static final int SLOT_SIZE = 48;
+    private static final int SLOT_UUID_MSB = 0;
+    private static final int SLOT_UUID_LSB = 8;
+    private static final int SLOT_DEEPEST = 16;
+    private static final int SLOT_DIVE_COUNT = 20;
+    private static final int SLOT_UNDERWATER_MILLIS = 24;
+    private static final int SLOT_LAST_DIVE = 32;
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final long FLUSH_INTERVAL_SECONDS = 30;
+
+    /**
+     * Copy of one player's statistics (for commands and leaderboards)
+     */
+    public static final class Stats {
+        public final UUID uuid;
+        public final float deepestDive;
+        public final int diveCount;
+        public final long underwaterMillis;
+        public final long lastDiveEpochMillis;
+
+        private Stats(UUID uuid, float deepestDive, int diveCount, long underwaterMillis, long lastDiveEpochMillis) {
+            this.uuid = uuid;
+            this.deepestDive = deepestDive;
+            this.diveCount = diveCount;
+            this.underwaterMillis = underwaterMillis;
+            this.lastDiveEpochMillis = lastDiveEpochMillis;
+        }
+    }
+
+    private final Path file;
+    private final HytaleLogger logger;
+
+    // Slot index of every player in the file (built once when the file is opened)
+    private final Map<UUID, Integer> slots = new HashMap<>();
+
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private int capacity;
+    private int used;
+
+    private ScheduledExecutorService flusher;
+
+    public DiveStatsStore(Path dataDirectory, HytaleLogger logger) {
+        this.file = dataDirectory.resolve(FILE_NAME);
+        this.logger = logger;
+    }
+
+    /**
+     * Open (or create) the stats file and start the periodic flush
+     */
+    public synchronized void open() throws IOException {
+        Files.createDirectories(file.getParent());
+        if (Files.exists(file) && !isValidFile()) {
+            Path corrupt = file.resolveSibling(FILE_NAME + ".corrupt");
+            Files.move(file, corrupt, StandardCopyOption.REPLACE_EXISTING);
+            logger.at(Level.WARNING).log("Dive stats file was unreadable - moved to %s and starting fresh", corrupt.getFileName());
+        }
+
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        if (channel.size() < HEADER_SIZE) {
+            capacity = INITIAL_CAPACITY;
+            used = 0;
+            map();
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, VERSION);
+            buffer.putInt(8, SLOT_SIZE);
+            buffer.putInt(HEADER_CAPACITY, capacity);
+            buffer.putInt(HEADER_USED, used);
+        } else {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            channel.read(header, 0);
+            capacity = header.getInt(HEADER_CAPACITY);
+            used = header.getInt(HEADER_USED);
+            map();
+            for (int i = 0; i < used; i++) {
+                int base = slotOffset(i);
+                slots.put(new UUID(buffer.getLong(base + SLOT_UUID_MSB), buffer.getLong(base + SLOT_UUID_LSB)), i);
+            }
+        }
+
+        flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "UnderwaterDepth-DiveStats");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flush, FLUSH_INTERVAL_SECONDS, FLUSH_INTERVAL_SECONDS, TimeUnit.SECONDS);
+        logger.at(Level.INFO).log("Dive stats loaded for %d players", used);
+    }
+
+    /**
+     * Record a finished dive - in-place writes to the player's slot
+     * Safe to call from any world thread
+     */
+    public synchronized void recordDive(UUID uuid, float maxDepth, long durationMillis, long endEpochMillis) {
+        if (buffer == null) {
+            return;
+        }
+
+        try {
+            int base = slotOffset(slotFor(uuid));
+            if (maxDepth > buffer.getFloat(base + SLOT_DEEPEST)) {
+                buffer.putFloat(base + SLOT_DEEPEST, maxDepth);
+            }
+            buffer.putInt(base + SLOT_DIVE_COUNT, buffer.getInt(base + SLOT_DIVE_COUNT) + 1);
+            buffer.putLong(base + SLOT_UNDERWATER_MILLIS, buffer.getLong(base + SLOT_UNDERWATER_MILLIS) + durationMillis);
+            buffer.putLong(base + SLOT_LAST_DIVE, endEpochMillis);
+        } catch (IOException e) {
+            logger.at(Level.WARNING).log("Failed to grow dive stats file: %s", e.getMessage());
+        }
+    }
+
+    /**
+     * Statistics of one player (null if they never finished a dive)
+     */
+    public synchronized Stats getStats(UUID uuid) {
+        Integer slot = slots.get(uuid);
+        return slot != null && buffer != null ? readSlot(slot) : null;
+    }
+
+    /**
+     * Visit every player's statistics (used to build leaderboards)
+     */
+    public synchronized void forEach(Consumer<Stats> visitor) {
+        if (buffer == null) {
+            return;
+        }
+        for (int i = 0; i < used; i++) {
+            visitor.accept(readSlot(i));
+        }
+    }
+
+    public synchronized int getPlayerCount() {
+        return used;
+    }
+
+    /**
+     * Force written slots to disk (background thread, and shutdown)
+     */
+    public void flush() {
+        MappedByteBuffer current;
+        synchronized (this) {
+            current = buffer;
+        }
+        if (current != null) {
+            try {
+                current.force();
+            } catch (RuntimeException e) {
+                logger.at(Level.WARNING).log("Failed to flush dive stats: %s", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Stop the periodic flush, force everything to disk and close the file
+     */
+    public void shutdown() {
+        if (flusher != null) {
+            flusher.shutdownNow();
+        }
+        flush();
+        synchronized (this) {
+            buffer = null;
+            slots.clear();
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (IOException e) {
+                    logger.at(Level.WARNING).log("Failed to close dive stats file: %s", e.getMessage());
+                }
+                channel = null;
+            }
+        }
+    }
+
+    private Stats readSlot(int slot) {
+        int base = slotOffset(slot);
+        return new Stats(
+            new UUID(buffer.getLong(base + SLOT_UUID_MSB), buffer.getLong(base + SLOT_UUID_LSB)),
+            buffer.getFloat(base + SLOT_DEEPEST),
+            buffer.getInt(base + SLOT_DIVE_COUNT),
+            buffer.getLong(base + SLOT_UNDERWATER_MILLIS),
+            buffer.getLong(base + SLOT_LAST_DIVE));
+    }
+
+    /**
+     * Slot of a player, claiming the next free one (and growing the file) on their first dive
+     */
+    private int slotFor(UUID uuid) throws IOException {
+        Integer slot = slots.get(uuid);
+        if (slot != null) {
+            return slot;
+        }
+
+        if (used == capacity) {
+            capacity *= 2;
+            map();
+            buffer.putInt(HEADER_CAPACITY, capacity);
+        }
+        int base = slotOffset(used);
+        buffer.putLong(base + SLOT_UUID_MSB, uuid.getMostSignificantBits());
+        buffer.putLong(base + SLOT_UUID_LSB, uuid.getLeastSignificantBits());
+        slots.put(uuid, used);
+        used++;
+        buffer.putInt(HEADER_USED, used);
+        return used - 1;
+    }
+
+    /**
+     * Map the whole file for the current capacity (extends the file when growing)
+     */
+    private void map() throws IOException {
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (long) capacity * SLOT_SIZE);
+    }
+
+    private boolean isValidFile() throws IOException {
+        try (FileChannel check = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (check.size() < HEADER_SIZE) {
+                return check.size() == 0;
+            }
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            check.read(header, 0);
+            int fileCapacity = header.getInt(HEADER_CAPACITY);
+            int fileUsed = header.getInt(HEADER_USED);
+            return header.getInt(0) == MAGIC && header.getInt(4) == VERSION && header.getInt(8) == SLOT_SIZE
+                && fileCapacity > 0 && fileUsed >= 0 && fileUsed <= fileCapacity
+                && check.size() >= HEADER_SIZE + (long) fileCapacity * SLOT_SIZE;
+        }
+    }
+
+    private static int slotOffset(int slot) {
+        return HEADER_SIZE + slot * SLOT_SIZE;
+    }
+}
@@ -0,0 +1,167 @@
+package com.underwaterdepth;
+
+/**
+ * Telemetry for one dive - a fixed-size ring buffer of (time, depth) samples
+ *
+ * Max depth, duration, smoothed ascent/descent rates and a noise-filtered direction are
+ * updated in O(1) per sample. Samples go into preallocated primitive arrays, so recording
+ * allocates nothing and memory per diver is fixed.
+ *
+ * @author BeyondSmash
+ */
+public class DiveTelemetry {
+
+    // Ring buffer size (power of two) - must cover DIRECTION_WINDOW_NANOS at the fastest sample rate
+    private static final int CAPACITY = 16;
+    private static final int MASK = CAPACITY - 1;
+
+    // Direction is taken from the depth change over roughly this much time
+    private static final long DIRECTION_WINDOW_NANOS = 600_000_000L;
+
+    // Weight of the newest measurement in the smoothed rates
+    private static final float RATE_SMOOTHING = 0.3f;
+
+    private final long[] sampleNanos = new long[CAPACITY];
+    private final float[] sampleDepths = new float[CAPACITY];
+
+    // Sequence number of the next sample, and of the oldest sample inside the direction window
+    private long nextSample = 0;
+    private long windowStart = 0;
+
+    private boolean active = false;
+    private long startNanos;
+    private long lastSampleNanos;
+    private float maxDepth;
+    private float descentRate; // m/s, smoothed over descending samples
+    private float ascentRate;  // m/s, smoothed over ascending samples
+    private int direction;     // 1 = descending, -1 = rising, 0 = stationary
+
+    /**
+     * Start a new dive (player entered the water)
+     */
+    public void start(long nowNanos) {
+        active = true;
+        startNanos = nowNanos;
+        lastSampleNanos = nowNanos;
+        nextSample = 0;
+        windowStart = 0;
+        maxDepth = 0f;
+        descentRate = 0f;
+        ascentRate = 0f;
+        direction = 0;
+    }
+
+    /**
+     * End the dive (player surfaced) - the stats stay readable until the next start
+     */
+    public void end() {
+        active = false;
+    }
+
+    /**
+     * Record a depth sample, with the direction arrow thresholds (m/s) to apply
+     */
+    public void addSample(long nowNanos, float depth, float startSpeed, float stopSpeed) {
+        if (!active) {
+            start(nowNanos);
+        }
+
+        // Smoothed ascent/descent rate from the previous sample
+        if (nextSample > 0) {
+            int previous = (int) ((nextSample - 1) & MASK);
+            float seconds = (nowNanos - sampleNanos[previous]) / 1_000_000_000f;
+            if (seconds > 0f) {
+                float rate = (depth - sampleDepths[previous]) / seconds;
+                if (rate > 0f) {
+                    descentRate += RATE_SMOOTHING * (rate - descentRate);
+                } else if (rate < 0f) {
+                    ascentRate += RATE_SMOOTHING * (-rate - ascentRate);
+                }
+            }
+        }
+
+        int slot = (int) (nextSample & MASK);
+        sampleNanos[slot] = nowNanos;
+        sampleDepths[slot] = depth;
+        nextSample++;
+        lastSampleNanos = nowNanos;
+        if (depth > maxDepth) {
+            maxDepth = depth;
+        }
+
+        // Slide the window start forward - overwritten samples and samples older than the window
+        // (keeping the newest one that is at least a full window old). Amortized O(1)
+        long oldestKept = Math.max(0, nextSample - CAPACITY);
+        if (windowStart < oldestKept) {
+            windowStart = oldestKept;
+        }
+        while (windowStart + 1 < nextSample - 1
+                && nowNanos - sampleNanos[(int) ((windowStart + 1) & MASK)] >= DIRECTION_WINDOW_NANOS) {
+            windowStart++;
+        }
+
+        updateDirection(nowNanos, depth, startSpeed, stopSpeed);
+    }
+
+    /**
+     * Direction from the depth change across the window, with hysteresis so
+     * bobbing at a steady depth doesn't flicker the arrow
+     */
+    private void updateDirection(long nowNanos, float depth, float startSpeed, float stopSpeed) {
+        if (windowStart >= nextSample - 1) {
+            return;
+        }
+        int start = (int) (windowStart & MASK);
+        float seconds = (nowNanos - sampleNanos[start]) / 1_000_000_000f;
+        if (seconds <= 0f) {
+            return;
+        }
+
+        float speed = (depth - sampleDepths[start]) / seconds;
+        if (speed >= startSpeed) {
+            direction = 1;
+        } else if (speed <= -startSpeed) {
+            direction = -1;
+        } else if (Math.abs(speed) < stopSpeed) {
+            direction = 0;
+        }
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+
+    public int getSampleCount() {
+        return (int) Math.min(nextSample, CAPACITY);
+    }
+
+    public float getMaxDepth() {
+        return maxDepth;
+    }
+
+    /**
+     * Time from the start of the dive to the latest sample
+     */
+    public long getDurationNanos() {
+        return lastSampleNanos - startNanos;
+    }
+
+    public long getStartNanos() {
+        return startNanos;
+    }
+
+    public float getDescentRate() {
+        return descentRate;
+    }
+
+    public float getAscentRate() {
+        return ascentRate;
+    }
+
+    /**
+     * @return 1 = descending, -1 = rising, 0 = stationary
+     */
+    public int getDirection() {
+        return direction;
+    }
+}
@@ -0,0 +1,45 @@
+package com.underwaterdepth;
+
+import java.util.UUID;
+
+/**
+ * A batch of player entities handed to the depth pass
+ * The ECS system wraps each archetype chunk in one of these, so DepthPass never
+ * touches the entity store directly and can be driven by a stand-in batch in tests
+ *
+ * @param <P> Player handle passed back to the HudSink (PlayerRef on the server)
+ * @author BeyondSmash
+ */
+public interface DiverBatch<P> {
+
+    /**
+     * Number of players in this batch
+     */
+    int size();
+
+    /**
+     * Whether the player is currently in a fluid (water)
+     */
+    boolean isInFluid(int index);
+
+    /**
+     * UUID of the player (null if the entity is not a player)
+     */
+    UUID getUuid(int index);
+
+    /**
+     * Handle the HudSink shows and hides this player's HUD with
+     */
+    P getPlayer(int index);
+
+    String getUsername(int index);
+
+    /**
+     * Precise position of the player
+     */
+    double getX(int index);
+
+    double getY(int index);
+
+    double getZ(int index);
+}
@@ -0,0 +1,20 @@
+package com.underwaterdepth;
+
+/**
+ * Read-only view of fluid blocks used by WaterSurfaceFinder
+ * Keeps the surface scan independent of the world API
+ *
+ * @author BeyondSmash
+ */
+public interface FluidProbe {
+
+    /**
+     * Whether the chunk holding this block column is loaded
+     */
+    boolean isColumnLoaded(int x, int z);
+
+    /**
+     * Whether the block at this position holds a fluid
+     */
+    boolean isFluid(int x, int y, int z);
+}
@@ -0,0 +1,201 @@
+package com.underwaterdepth;
+
+/**
+ * Precomputed gauge display states, indexed by depth quantized to 0.1m
+ * Everything the gauge shows (depth text, marker position, marker color, tick labels)
+ * depends only on the quantized depth and the player's decimal setting, so it is
+ * built once per gauge geometry (see ServerConfig) and the per-update hot path is a plain array lookup
+ *
+ * Decimal depths are rounded to the nearest 0.1m (the text is that value). Whole-meter depths are
+ * truncated to 0.1m instead, so every depth in a slot rounds to the same whole meter - rounding
+ * twice would show 4.46m as "5m"
+ *
+ * @author BeyondSmash
+ */
+public final class GaugeDisplayTable {
+
+    // Depths covered by the table (world height) - deeper values are computed on demand
+    private static final int MAX_DEPTH = 320;
+    private static final int MAX_QUANTIZED = MAX_DEPTH * 10;
+
+    // Marker colors
+    private static final String COLOR_INTERVAL = "#FFE6B5"; // 5m intervals (pale orange)
+    private static final String COLOR_DEFAULT = "#ffffff";  // All other depths (white)
+
+    /**
+     * Immutable display state for one quantized depth
+     */
+    public static final class Entry {
+        public final int markerIndex;
+        public final String depthText;
+        public final String markerColor;
+        public final String[] tickLabels; // shared between entries - never modify
+
+        private Entry(int markerIndex, String depthText, String markerColor, String[] tickLabels) {
+            this.markerIndex = markerIndex;
+            this.depthText = depthText;
+            this.markerColor = markerColor;
+            this.tickLabels = tickLabels;
+        }
+    }
+
+    // Meters per gauge range (the gauge pages every baseRange meters)
+    private final int baseRange;
+
+    // Number of marker positions on the gauge
+    private final int markerCount;
+
+    // [above surface ? 1 : 0][decimal ? 1 : 0][quantized depth]
+    private final Entry[][][] entries = new Entry[2][2][MAX_QUANTIZED + 1];
+
+    // [range index][negative range ? 1 : 0] -> 6 tick labels, top to bottom
+    private final String[][][] tickLabels;
+
+    // Whole-meter sea level values ("0m", "1m", ...)
+    private final String[] meterTexts = new String[MAX_DEPTH + 1];
+
+    public GaugeDisplayTable(int baseRange, int markerCount) {
+        this.baseRange = baseRange;
+        this.markerCount = markerCount;
+        this.tickLabels = new String[MAX_DEPTH / baseRange + 1][2][];
+        for (int range = 0; range < tickLabels.length; range++) {
+            tickLabels[range][0] = buildTickLabels(range * baseRange, baseRange, false);
+            tickLabels[range][1] = buildTickLabels(range * baseRange, baseRange, true);
+        }
+        for (int meters = 0; meters <= MAX_DEPTH; meters++) {
+            meterTexts[meters] = meters + "m";
+        }
+        for (int above = 0; above < 2; above++) {
+            for (int decimal = 0; decimal < 2; decimal++) {
+                for (int q = 0; q <= MAX_QUANTIZED; q++) {
+                    entries[above][decimal][q] = buildEntry(q, above == 1, decimal == 1);
+                }
+            }
+        }
+    }
+
+    /**
+     * Table of the server default profile (worlds with their own gauge geometry use their profile's table)
+     */
+    public static GaugeDisplayTable getInstance() {
+        return ServerConfig.get().getDefaultProfile().getDisplayTable();
+    }
+
+    public int getBaseRange() {
+        return baseRange;
+    }
+
+    public int getMarkerCount() {
+        return markerCount;
+    }
+
+    /**
+     * Look up the display state for a depth
+     *
+     * @param depth Depth in meters (negative = above the water entry point)
+     * @param decimalEnabled Whether the player shows decimal depths
+     */
+    public Entry lookup(float depth, boolean decimalEnabled) {
+        boolean isAboveSurface = depth < 0;
+        // In double, so the slot follows the float's exact value (as String.format / Math.round do)
+        double tenths = Math.abs((double) depth) * 10;
+        int quantized = (int) (decimalEnabled ? Math.round(tenths) : tenths);
+        if (quantized > MAX_QUANTIZED) {
+            // Off the table (outside world bounds) - build on demand
+            return buildEntry(quantized, isAboveSurface, decimalEnabled);
+        }
+        return entries[isAboveSurface ? 1 : 0][decimalEnabled ? 1 : 0][quantized];
+    }
+
+    /**
+     * Whole-meter text for a value, e.g. 4.6 -> "5m" (sign is dropped)
+     */
+    public String meterText(float value) {
+        int meters = Math.round(Math.abs(value));
+        if (meters > MAX_DEPTH) {
+            return meters + "m";
+        }
+        return meterTexts[meters];
+    }
+
+    private Entry buildEntry(int quantized, boolean isAboveSurface, boolean decimalEnabled) {
+        float absDepth = quantized / 10f;
+
+        // Determine range and tick labels based on depth
+        int rangeStart = (quantized / (baseRange * 10)) * baseRange;
+        boolean isNegativeRange = isAboveSurface && quantized >= 10;
+
+        // Calculate marker position within current range
+        float depthInRange = absDepth - rangeStart;
+        float normalizedDepth = Math.min(depthInRange / baseRange, 1.0f);
+
+        // Map to marker indices (0 - markerCount-1)
+        int markerIndex = Math.round(normalizedDepth * (markerCount - 1));
+        markerIndex = Math.max(0, Math.min(markerCount - 1, markerIndex));
+
+        // For negative ranges (above surface), invert marker position
+        if (isNegativeRange) {
+            markerIndex = (markerCount - 1) - markerIndex;
+        }
+
+        // Format depth text with decimal or whole number
+        String prefix = isAboveSurface ? "+" : "-";
+        String depthText;
+        if (decimalEnabled) {
+            depthText = prefix + (quantized / 10) + "." + (quantized % 10) + "m";
+        } else {
+            depthText = prefix + wholeMeters(quantized) + "m";
+        }
+
+        int rangeIndex = rangeStart / baseRange;
+        String[] ticks = rangeIndex < tickLabels.length
+            ? tickLabels[rangeIndex][isNegativeRange ? 1 : 0]
+            : buildTickLabels(rangeStart, baseRange, isNegativeRange);
+
+        return new Entry(markerIndex, depthText.intern(), getMarkerColor(quantized, decimalEnabled), ticks);
+    }
+
+    /**
+     * Get marker color based on depth value
+     * - #FFE6B5 (pale orange) for 5m intervals (5.0, 10.0, 15.0, etc.)
+     * - #ffffff (white) for all other depths
+     */
+    private static String getMarkerColor(int quantized, boolean decimalEnabled) {
+        // If decimal mode is off, check whole number for 5m intervals
+        if (!decimalEnabled) {
+            int wholeDepth = wholeMeters(quantized);
+            if (wholeDepth % 5 == 0 && wholeDepth > 0) {
+                return COLOR_INTERVAL;
+            }
+            return COLOR_DEFAULT;
+        }
+
+        // Exact 5m interval at 0.1m resolution
+        if (quantized % 50 == 0) {
+            return COLOR_INTERVAL;
+        }
+        return COLOR_DEFAULT;
+    }
+
+    /**
+     * Whole meters shown for a truncated slot - every depth in [q/10, (q+1)/10) rounds to this
+     */
+    private static int wholeMeters(int truncatedTenths) {
+        return (truncatedTenths + 5) / 10;
+    }
+
+    /**
+     * Tick labels for a range, ordered #Tick3m to #Tick18m
+     * The ticks sit at 3/20 - 18/20 of the gauge, so a 20m range reads 3m, 6m ... 18m
+     * For negative range (above surface), labels are reversed bottom-to-top
+     */
+    private static String[] buildTickLabels(int rangeStart, int baseRange, boolean isNegativeRange) {
+        String[] labels = new String[6];
+        for (int i = 0; i < 6; i++) {
+            int tick = isNegativeRange ? 6 - i : 1 + i;
+            int offset = Math.round(baseRange * tick * 3 / 20f);
+            labels[i] = ((rangeStart + offset) + "m").intern();
+        }
+        return labels;
+    }
+}
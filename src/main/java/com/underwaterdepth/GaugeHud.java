@@ -0,0 +1,87 @@
+package com.underwaterdepth;
+
+import java.util.Comparator;
+
+/**
+ * A diver's depth gauge as the depth pass sees it
+ * DepthHud is the on-screen implementation; the pass only records changes and
+ * flushes them, so it can run against any implementation (tests, the simulator)
+ *
+ * @author BeyondSmash
+ */
+public interface GaugeHud {
+
+    /**
+     * Order for sharing the HUD update budget: biggest display change first (whole meters),
+     * then fastest vertical movement (0.5 m/s steps), then longest wait since the last update
+     */
+    Comparator<GaugeHud> PRIORITY_ORDER = (a, b) -> {
+        int change = Integer.compare((int) b.getPendingDepthChange(), (int) a.getPendingDepthChange());
+        if (change != 0) {
+            return change;
+        }
+        int speed = Integer.compare((int) (Math.abs(b.getVerticalSpeed()) * 2f), (int) (Math.abs(a.getVerticalSpeed()) * 2f));
+        if (speed != 0) {
+            return speed;
+        }
+        return Long.compare(a.getLastSentNanos(), b.getLastSentNanos());
+    };
+
+    /**
+     * Record a new depth - only changed properties are kept until flushPending()
+     *
+     * @param direction 1 = descending, -1 = rising, 0 = stationary
+     */
+    void updateDepth(float depth, float seaLevelDepth, int direction);
+
+    /**
+     * Send all pending changes to the client in one update
+     *
+     * @return Number of properties sent
+     */
+    int flushPending();
+
+    boolean hasPendingChanges();
+
+    /**
+     * Layout this HUD was built with (COMPACT for the compact profile)
+     */
+    GaugeLayout getLayout();
+
+    void setDisplayTable(GaugeDisplayTable displayTable);
+
+    void setConfig(PlayerConfig config);
+
+    /**
+     * Check if the player this HUD belongs to is still there to receive updates
+     */
+    boolean isPlayerValid();
+
+    /**
+     * How far the depth has moved since the client was last sent an update (meters)
+     */
+    float getPendingDepthChange();
+
+    float getVerticalSpeed();
+
+    void setVerticalSpeed(float verticalSpeed);
+
+    /**
+     * When the client was last sent an update (System.nanoTime)
+     */
+    long getLastSentNanos();
+
+    /**
+     * Mark this HUD as queued for the end-of-pass flush
+     *
+     * @return false if it was already queued
+     */
+    boolean markFlushQueued();
+
+    /**
+     * Take this HUD off the flush queue (flushed, or hidden before the flush)
+     *
+     * @return true if it was queued
+     */
+    boolean takeFlushQueued();
+}
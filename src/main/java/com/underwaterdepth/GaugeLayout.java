@@ -0,0 +1,51 @@
+package com.underwaterdepth;
+
+/**
+ * Gauge UI layouts the server can drive
+ *
+ * @author BeyondSmash
+ */
+public enum GaugeLayout {
+
+    // One #Marker label moved along the gauge by its top anchor (default)
+    SINGLE_MARKER("Hud/UnderwaterDepth/UnderwaterDepth_DepthMeter_SingleMarker.ui"),
+
+    // 60 fixed #Marker0 - #Marker59 labels, one of them showing the depth (fallback)
+    LEGACY("Hud/UnderwaterDepth/UnderwaterDepth_DepthMeter.ui"),
+
+    // Compact profile - one whole-meter depth label, no gauge, ticks or sea level line
+    COMPACT("Hud/UnderwaterDepth/UnderwaterDepth_DepthMeter_Compact.ui");
+
+    private final String uiPath;
+
+    GaugeLayout(String uiPath) {
+        this.uiPath = uiPath;
+    }
+
+    /**
+     * UI file appended when the HUD is built
+     */
+    public String getUiPath() {
+        return uiPath;
+    }
+
+    /**
+     * Layout used for new full-size HUDs in worlds without their own profile (gaugeLayout in the server config)
+     */
+    public static GaugeLayout getDefault() {
+        return ServerConfig.get().getDefaultProfile().getGaugeLayout();
+    }
+
+    /**
+     * Parse a layout name - "legacy" and "compact" select those layouts, anything else the single marker layout
+     */
+    public static GaugeLayout fromName(String name) {
+        if (name != null && name.trim().equalsIgnoreCase("legacy")) {
+            return LEGACY;
+        }
+        if (name != null && name.trim().equalsIgnoreCase("compact")) {
+            return COMPACT;
+        }
+        return SINGLE_MARKER;
+    }
+}
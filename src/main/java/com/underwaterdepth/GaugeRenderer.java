@@ -0,0 +1,267 @@
+package com.underwaterdepth;
+
+/**
+ * Renders the depth gauge into a HudPropertyState
+ * Holds no server types, so it can be driven by DepthHud in game and by benchmarks
+ * or tools outside the server with any HudPropertyState.Sink
+ *
+ * @author BeyondSmash
+ */
+public class GaugeRenderer {
+
+    // Marker labels in the legacy layout (#Marker0 - #Marker59)
+    private static final int MARKER_COUNT = 60;
+
+    // Top anchor of the first and last marker position (same span in both layouts)
+    private static final int MARKER_TOP_FIRST = 40;
+    private static final int MARKER_TOP_LAST = 230;
+
+    // Property slots tracked by the shadow copy (see HudPropertyState)
+    private static final int SLOT_SEA_LEVEL_TEXT = 0;
+    private static final int SLOT_SEA_LEVEL_VALUE = 1;
+    private static final int SLOT_LOCAL_DEPTH_LABEL = 2;
+    private static final int SLOT_DIRECTION_ICON = 3;
+    private static final int SLOT_TICK_FIRST = 4;                                   // 6 tick labels
+    private static final int SLOT_MARKER_TEXT_FIRST = SLOT_TICK_FIRST + 6;          // 60 marker texts
+    private static final int SLOT_MARKER_COLOR_FIRST = SLOT_MARKER_TEXT_FIRST + MARKER_COUNT; // 60 marker colors
+    private static final int SLOT_COUNT = SLOT_MARKER_COLOR_FIRST + MARKER_COUNT;
+
+    // Single marker layout - one label whose top anchor follows the depth
+    private static final int SLOT_MARKER_TEXT = SLOT_TICK_FIRST + 6;
+    private static final int SLOT_MARKER_COLOR = SLOT_MARKER_TEXT + 1;
+    private static final int SLOT_MARKER_TOP = SLOT_MARKER_TEXT + 2;
+    private static final int SINGLE_SLOT_COUNT = SLOT_MARKER_TEXT + 3;
+
+    // Compact layout - a single whole-meter depth label
+    private static final int SLOT_COMPACT_DEPTH = 0;
+    private static final int COMPACT_SLOT_COUNT = 1;
+
+    private static final String[] TICK_IDS = {"#Tick3m", "#Tick6m", "#Tick9m", "#Tick12m", "#Tick15m", "#Tick18m"};
+
+    // Selector for each slot, built once per layout and shared by every gauge
+    private static final String[] SELECTORS = buildSelectors();
+    private static final String[] SINGLE_SELECTORS = buildSingleSelectors();
+    private static final String[] COMPACT_SELECTORS = {"#CompactDepth.Text"};
+
+    private static final String SEA_LEVEL_BELOW_TEXT = "Units below sea level:";
+    private static final String SEA_LEVEL_ABOVE_TEXT = "Units above sea level:";
+
+    private final GaugeLayout layout;
+
+    // What the client was last sent - updates only carry the difference
+    private final HudPropertyState properties;
+
+    // Legacy marker currently showing the depth text (-1 = none yet)
+    private int activeMarkerIndex = -1;
+
+    public GaugeRenderer() {
+        this(GaugeLayout.SINGLE_MARKER);
+    }
+
+    public GaugeRenderer(GaugeLayout layout) {
+        this.layout = layout;
+        this.properties = new HudPropertyState(layout == GaugeLayout.LEGACY ? SELECTORS
+            : layout == GaugeLayout.COMPACT ? COMPACT_SELECTORS : SINGLE_SELECTORS);
+    }
+
+    public GaugeLayout getLayout() {
+        return layout;
+    }
+
+    /**
+     * Render the gauge for a depth - records changed properties for the next flush
+     *
+     * @param depth Depth in meters (relative to water entry)
+     * @param seaLevelDepth Depth relative to sea level
+     * @param direction 1 = descending, -1 = rising, 0 = stationary
+     * @param decimalEnabled Show depth with one decimal
+     * @param seaLevelEnabled Show the sea level line
+     * @param fullRefresh Write every marker (fresh UI) instead of only the previous and new one
+     * @return The display table entry that was rendered
+     */
+    public GaugeDisplayTable.Entry render(float depth, float seaLevelDepth, int direction,
+                                          boolean decimalEnabled, boolean seaLevelEnabled, boolean fullRefresh) {
+        return render(GaugeDisplayTable.getInstance(), depth, seaLevelDepth, direction, decimalEnabled, seaLevelEnabled, fullRefresh);
+    }
+
+    /**
+     * Render the gauge with a specific display table (the world profile's gauge geometry)
+     */
+    public GaugeDisplayTable.Entry render(GaugeDisplayTable table, float depth, float seaLevelDepth, int direction,
+                                          boolean decimalEnabled, boolean seaLevelEnabled, boolean fullRefresh) {
+        // Compact profile - signed whole meters only ("-5m" / "+2m"), nothing else on screen
+        if (layout == GaugeLayout.COMPACT) {
+            GaugeDisplayTable.Entry entry = table.lookup(depth, false);
+            properties.set(SLOT_COMPACT_DEPTH, entry.depthText);
+            return entry;
+        }
+
+        // Look up marker position, text, color and tick labels for this depth
+        GaugeDisplayTable.Entry entry = table.lookup(depth, decimalEnabled);
+
+        // Update sea level display (or hide if disabled)
+        updateSeaLevelDisplay(table, seaLevelDepth, seaLevelEnabled);
+
+        // Update local depth label with directional arrow
+        updateLocalDepthLabel(direction);
+
+        // Show gauge and update tick labels for current range
+        showGaugeElements(entry.tickLabels);
+
+        // Move the marker (or show only the active legacy marker, hiding all others)
+        if (layout == GaugeLayout.LEGACY) {
+            updateMarkerVisibility(Math.min(entry.markerIndex, MARKER_COUNT - 1), entry.depthText, entry.markerColor, fullRefresh);
+        } else {
+            updateMarker(markerTop(entry.markerIndex, table.getMarkerCount()), entry.depthText, entry.markerColor);
+        }
+        return entry;
+    }
+
+    /**
+     * Forget what the client was sent and queue every property (stationary direction)
+     * Used for a fresh UI, and after an update that never reached the client
+     */
+    public GaugeDisplayTable.Entry renderAll(GaugeDisplayTable table, float depth, float seaLevelDepth,
+                                             boolean decimalEnabled, boolean seaLevelEnabled) {
+        reset();
+        return render(table, depth, seaLevelDepth, 0, decimalEnabled, seaLevelEnabled, true);
+    }
+
+    /**
+     * Check if any property changed since the last flush
+     */
+    public boolean hasChanges() {
+        return properties.hasChanges();
+    }
+
+    /**
+     * Write all changed properties to the sink
+     *
+     * @return Number of properties written
+     */
+    public int flush(HudPropertyState.Sink sink) {
+        return properties.flush(sink);
+    }
+
+    /**
+     * Forget everything the client was sent (the UI is being rebuilt)
+     */
+    public void reset() {
+        properties.reset();
+        activeMarkerIndex = -1;
+    }
+
+    /**
+     * Update local depth label with directional indicator
+     */
+    private void updateLocalDepthLabel(int direction) {
+        // Update label text
+        properties.set(SLOT_LOCAL_DEPTH_LABEL, "Local Water Depth:");
+
+        // Update directional arrow using simple text characters
+        if (direction > 0) {
+            // Descending - show down arrow
+            properties.set(SLOT_DIRECTION_ICON, "v");
+        } else if (direction < 0) {
+            // Rising - show up arrow
+            properties.set(SLOT_DIRECTION_ICON, "^");
+        } else {
+            // Stationary - hide by clearing text
+            properties.set(SLOT_DIRECTION_ICON, "");
+        }
+    }
+
+    /**
+     * Update sea level display text (or hide if disabled)
+     */
+    private void updateSeaLevelDisplay(GaugeDisplayTable table, float seaLevelDepth, boolean enabled) {
+        if (!enabled) {
+            // Hide sea level display
+            properties.set(SLOT_SEA_LEVEL_TEXT, "");
+            properties.set(SLOT_SEA_LEVEL_VALUE, "");
+            return;
+        }
+
+        // Format combined text: "Units below sea level: 5m"
+        // The value is bold/larger via separate label with fixed positioning
+        properties.set(SLOT_SEA_LEVEL_TEXT, seaLevelDepth > 0 ? SEA_LEVEL_BELOW_TEXT : SEA_LEVEL_ABOVE_TEXT);
+        properties.set(SLOT_SEA_LEVEL_VALUE, table.meterText(seaLevelDepth));
+    }
+
+    /**
+     * Show gauge tick labels for the current range (ordered #Tick3m to #Tick18m)
+     */
+    private void showGaugeElements(String[] tickLabels) {
+        for (int i = 0; i < tickLabels.length; i++) {
+            properties.set(SLOT_TICK_FIRST + i, tickLabels[i]);
+        }
+    }
+
+    /**
+     * Move the single marker to a position and update its text and color
+     * A marker move is one anchor write, plus the text when the displayed depth changed
+     */
+    private void updateMarker(int markerTop, String depthText, String color) {
+        properties.setInt(SLOT_MARKER_TOP, markerTop);
+        properties.set(SLOT_MARKER_TEXT, depthText);
+        properties.set(SLOT_MARKER_COLOR, color);
+    }
+
+    /**
+     * Update marker visibility (legacy layout) - show only the active marker at the specified position
+     * After the initial build only the previous and new marker are touched
+     */
+    private void updateMarkerVisibility(int activeIndex, String depthText, String color, boolean fullRefresh) {
+        if (fullRefresh || activeMarkerIndex < 0) {
+            for (int i = 0; i < MARKER_COUNT; i++) {
+                if (i != activeIndex) {
+                    properties.set(SLOT_MARKER_TEXT_FIRST + i, "");
+                }
+            }
+        } else if (activeMarkerIndex != activeIndex) {
+            properties.set(SLOT_MARKER_TEXT_FIRST + activeMarkerIndex, "");
+        }
+
+        properties.set(SLOT_MARKER_TEXT_FIRST + activeIndex, depthText);
+        properties.set(SLOT_MARKER_COLOR_FIRST + activeIndex, color);
+        activeMarkerIndex = activeIndex;
+    }
+
+    /**
+     * Build the selector table for all property slots
+     */
+    private static String[] buildSelectors() {
+        String[] selectors = new String[SLOT_COUNT];
+        selectors[SLOT_SEA_LEVEL_TEXT] = "#SeaLevelText.Text";
+        selectors[SLOT_SEA_LEVEL_VALUE] = "#SeaLevelValue.Text";
+        selectors[SLOT_LOCAL_DEPTH_LABEL] = "#LocalDepthLabel.Text";
+        selectors[SLOT_DIRECTION_ICON] = "#DirectionIcon.Text";
+        for (int i = 0; i < TICK_IDS.length; i++) {
+            selectors[SLOT_TICK_FIRST + i] = TICK_IDS[i] + ".Text";
+        }
+        for (int i = 0; i < MARKER_COUNT; i++) {
+            selectors[SLOT_MARKER_TEXT_FIRST + i] = "#Marker" + i + ".Text";
+            selectors[SLOT_MARKER_COLOR_FIRST + i] = "#Marker" + i + ".Style.TextColor";
+        }
+        return selectors;
+    }
+
+    /**
+     * Build the selector table for the single marker layout
+     */
+    private static String[] buildSingleSelectors() {
+        String[] selectors = new String[SINGLE_SLOT_COUNT];
+        System.arraycopy(SELECTORS, 0, selectors, 0, SLOT_TICK_FIRST + TICK_IDS.length);
+        selectors[SLOT_MARKER_TEXT] = "#Marker.Text";
+        selectors[SLOT_MARKER_COLOR] = "#Marker.Style.TextColor";
+        selectors[SLOT_MARKER_TOP] = "#Marker.Anchor.Top";
+        return selectors;
+    }
+
+    /**
+     * Top anchor of a marker position - positions are spread evenly between the first and last anchor
+     */
+    private static int markerTop(int markerIndex, int markerCount) {
+        return MARKER_TOP_FIRST + Math.round(markerIndex * (float) (MARKER_TOP_LAST - MARKER_TOP_FIRST) / (markerCount - 1));
+    }
+}
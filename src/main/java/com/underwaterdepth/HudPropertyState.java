@@ -0,0 +1,132 @@
+package com.underwaterdepth;
+
+/**
+ * Shadow copy of the HUD properties last sent to the client
+ * Writes that match what the client already has are dropped, so each
+ * update only carries the properties that actually changed
+ *
+ * @author BeyondSmash
+ */
+public class HudPropertyState {
+
+    /**
+     * Receives property writes when pending changes are flushed
+     */
+    public interface Sink {
+        void set(String selector, String value);
+
+        /**
+         * Numeric properties (e.g. anchors) - override when the target has a typed setter
+         */
+        default void set(String selector, int value) {
+            set(selector, Integer.toString(value));
+        }
+    }
+
+    // Selector for each property slot (e.g. "#Marker12.Text")
+    private final String[] selectors;
+
+    // Last value sent (or queued to be sent) for each slot - null = unknown to client
+    private final String[] values;
+
+    // Numeric slots (set through setInt) and their last value
+    private final boolean[] numeric;
+    private final boolean[] intKnown;
+    private final int[] intValues;
+
+    // Slots changed since the last flush, in the order they were first changed
+    private final boolean[] dirty;
+    private final int[] dirtySlots;
+    private int dirtyCount = 0;
+
+    public HudPropertyState(String[] selectors) {
+        this.selectors = selectors;
+        this.values = new String[selectors.length];
+        this.numeric = new boolean[selectors.length];
+        this.intKnown = new boolean[selectors.length];
+        this.intValues = new int[selectors.length];
+        this.dirty = new boolean[selectors.length];
+        this.dirtySlots = new int[selectors.length];
+    }
+
+    /**
+     * Set a property value - only marks the slot dirty if it differs from the shadow copy
+     */
+    public void set(int slot, String value) {
+        String previous = values[slot];
+        if (previous == value || (previous != null && previous.equals(value))) {
+            return;
+        }
+
+        values[slot] = value;
+        markDirty(slot);
+    }
+
+    /**
+     * Set a numeric property value - only marks the slot dirty if it differs from the shadow copy
+     */
+    public void setInt(int slot, int value) {
+        if (intKnown[slot] && intValues[slot] == value) {
+            return;
+        }
+
+        numeric[slot] = true;
+        intKnown[slot] = true;
+        intValues[slot] = value;
+        markDirty(slot);
+    }
+
+    private void markDirty(int slot) {
+        if (!dirty[slot]) {
+            dirty[slot] = true;
+            dirtySlots[dirtyCount++] = slot;
+        }
+    }
+
+    /**
+     * Check if any property changed since the last flush
+     */
+    public boolean hasChanges() {
+        return dirtyCount > 0;
+    }
+
+    /**
+     * Number of properties waiting to be sent
+     */
+    public int getPendingCount() {
+        return dirtyCount;
+    }
+
+    /**
+     * Write all changed properties to the sink and clear the pending list
+     *
+     * @return Number of properties written
+     */
+    public int flush(Sink sink) {
+        int written = dirtyCount;
+        for (int i = 0; i < dirtyCount; i++) {
+            int slot = dirtySlots[i];
+            if (numeric[slot]) {
+                sink.set(selectors[slot], intValues[slot]);
+            } else {
+                sink.set(selectors[slot], values[slot]);
+            }
+            dirty[slot] = false;
+        }
+        dirtyCount = 0;
+        return written;
+    }
+
+    /**
+     * Forget everything the client was sent
+     * Used when the HUD is rebuilt from scratch (the next flush re-sends every property)
+     */
+    public void reset() {
+        for (int i = 0; i < values.length; i++) {
+            values[i] = null;
+            intKnown[i] = false;
+            dirty[i] = false;
+        }
+        dirtyCount = 0;
+    }
+}
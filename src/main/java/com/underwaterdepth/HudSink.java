@@ -0,0 +1,24 @@
+package com.underwaterdepth;
+
+/**
+ * Where the depth pass shows and hides HUDs
+ * The plugin registers them with MultipleHUD; tests and the simulator use stand-ins
+ *
+ * @param <P> Player handle handed out by the DiverBatch
+ * @author BeyondSmash
+ */
+public interface HudSink<P> {
+
+    /**
+     * Show a new HUD to a player
+     *
+     * @return The HUD, or null if it could not be shown (the pass tries again on the next evaluation)
+     */
+    GaugeHud show(P player, float depth, float seaLevelDepth, GaugeLayout layout, GaugeDisplayTable displayTable,
+                  PlayerConfig config);
+
+    /**
+     * Remove a player's HUD from the screen
+     */
+    void hide(P player, GaugeHud hud);
+}
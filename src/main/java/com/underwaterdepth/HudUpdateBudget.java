@@ -0,0 +1,118 @@
+package com.underwaterdepth;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Server-wide budget for HUD updates, shared by every world
+ *
+ * Token buckets refilled at a fixed number of updates per second in total. The rate is split
+ * between worlds in proportion to their pending HUD count (reported on every pass), so a world
+ * that ticks early can't drain the budget and starve the others. HUDs that don't get a token
+ * stay queued (and keep merging changes) until a later pass, so updates are deferred, never lost.
+ *
+ * @author BeyondSmash
+ */
+public class HudUpdateBudget {
+
+    // Bucket holds at most this many seconds of refill (burst after a quiet period)
+    private static final double BURST_SECONDS = 0.5;
+
+    // Worlds that stopped reporting this long ago are dropped (unloaded)
+    private static final long STALE_NANOS = 5_000_000_000L;
+
+    /**
+     * One world's bucket and the demand it last reported
+     */
+    private static final class Share {
+        double tokens;
+        long lastRefillNanos;
+        int demand;
+
+        Share(long nowNanos) {
+            this.lastRefillNanos = nowNanos;
+        }
+    }
+
+    private final double updatesPerSecond;
+    private final double capacity;
+
+    // World name -> bucket (guarded by this)
+    private final Map<String, Share> shares = new HashMap<>();
+    private long totalDemand;
+
+    /**
+     * @param updatesPerSecond Updates allowed per second across all worlds (0 or less = unlimited)
+     */
+    public HudUpdateBudget(int updatesPerSecond) {
+        this.updatesPerSecond = updatesPerSecond;
+        this.capacity = Math.max(1.0, updatesPerSecond * BURST_SECONDS);
+    }
+
+    public int getUpdatesPerSecond() {
+        return (int) updatesPerSecond;
+    }
+
+    public boolean isUnlimited() {
+        return updatesPerSecond <= 0;
+    }
+
+    /**
+     * Report a world's pending HUD count and take up to that many tokens
+     * Call on every pass, also with 0, so the world's share follows its backlog
+     *
+     * @return Number of updates the world may send now (0 - wanted)
+     */
+    public int acquire(String worldName, int wanted, long nowNanos) {
+        if (isUnlimited()) {
+            return wanted;
+        }
+
+        synchronized (this) {
+            dropStale(nowNanos);
+            Share share = shares.computeIfAbsent(worldName, k -> new Share(nowNanos));
+            totalDemand += wanted - share.demand;
+            share.demand = wanted;
+
+            // Refill at this world's part of the rate (its share of all pending HUDs)
+            double fraction = totalDemand > 0 ? (double) wanted / totalDemand : 0;
+            long elapsed = nowNanos - share.lastRefillNanos;
+            if (elapsed > 0) {
+                share.tokens = Math.min(Math.max(1.0, capacity * fraction),
+                    share.tokens + elapsed / 1_000_000_000.0 * updatesPerSecond * fraction);
+            }
+            share.lastRefillNanos = nowNanos;
+
+            int granted = (int) Math.min(wanted, Math.floor(share.tokens));
+            share.tokens -= granted;
+            return granted;
+        }
+    }
+
+    /**
+     * Give back tokens that were granted to a world but not used
+     */
+    public void release(String worldName, int unused) {
+        if (isUnlimited() || unused <= 0) {
+            return;
+        }
+        synchronized (this) {
+            Share share = shares.get(worldName);
+            if (share != null) {
+                share.tokens = Math.min(capacity, share.tokens + unused);
+            }
+        }
+    }
+
+    private void dropStale(long nowNanos) {
+        Iterator<Share> iterator = shares.values().iterator();
+        while (iterator.hasNext()) {
+            Share share = iterator.next();
+            if (nowNanos - share.lastRefillNanos > STALE_NANOS) {
+                totalDemand -= share.demand;
+                iterator.remove();
+            }
+        }
+    }
+}
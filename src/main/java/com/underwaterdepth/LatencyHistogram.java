@@ -0,0 +1,100 @@
+package com.underwaterdepth;
+
+import java.math.BigDecimal;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fixed-bucket latency histogram, safe to record from any thread
+ * Buckets are cumulative-friendly upper bounds in microseconds, matching the
+ * OpenMetrics histogram model (le = "less than or equal")
+ *
+ * @author BeyondSmash
+ */
+public class LatencyHistogram {
+
+    // Bucket upper bounds in microseconds (the last bucket is +Inf)
+    private static final long[] BOUNDS_MICROS = {
+        10, 25, 50, 100, 250, 500, 1_000, 2_500, 5_000, 10_000, 25_000, 50_000, 100_000, 250_000, 1_000_000
+    };
+
+    private final LongAdder[] buckets = new LongAdder[BOUNDS_MICROS.length + 1];
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sumNanos = new LongAdder();
+
+    public LatencyHistogram() {
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Record one observation
+     */
+    public void record(long nanos) {
+        long micros = nanos / 1000;
+        int index = 0;
+        while (index < BOUNDS_MICROS.length && micros > BOUNDS_MICROS[index]) {
+            index++;
+        }
+        buckets[index].increment();
+        count.increment();
+        sumNanos.add(nanos);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getSumNanos() {
+        return sumNanos.sum();
+    }
+
+    /**
+     * Mean in microseconds (0 if empty)
+     */
+    public double getMeanMicros() {
+        long n = count.sum();
+        return n == 0 ? 0 : sumNanos.sum() / 1000.0 / n;
+    }
+
+    /**
+     * Approximate percentile in microseconds - the upper bound of the bucket holding it
+     *
+     * @param percentile 0-100
+     */
+    public long getPercentileMicros(double percentile) {
+        long n = count.sum();
+        if (n == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(n * percentile / 100.0);
+        long seen = 0;
+        for (int i = 0; i < BOUNDS_MICROS.length; i++) {
+            seen += buckets[i].sum();
+            if (seen >= rank) {
+                return BOUNDS_MICROS[i];
+            }
+        }
+        return Long.MAX_VALUE;
+    }
+
+    /**
+     * Append this histogram in OpenMetrics text format (values in seconds)
+     */
+    public void writeOpenMetrics(StringBuilder out, String name, String help) {
+        out.append("# TYPE ").append(name).append(" histogram\n");
+        out.append("# UNIT ").append(name).append(" seconds\n");
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+
+        long cumulative = 0;
+        for (int i = 0; i < BOUNDS_MICROS.length; i++) {
+            cumulative += buckets[i].sum();
+            out.append(name).append("_bucket{le=\"").append(BigDecimal.valueOf(BOUNDS_MICROS[i], 6).stripTrailingZeros().toPlainString()).append("\"} ")
+                .append(cumulative).append('\n');
+        }
+        cumulative += buckets[BOUNDS_MICROS.length].sum();
+        out.append(name).append("_bucket{le=\"+Inf\"} ").append(cumulative).append('\n');
+        out.append(name).append("_count ").append(cumulative).append('\n');
+        out.append(name).append("_sum ").append(sumNanos.sum() / 1_000_000_000.0).append('\n');
+    }
+}
@@ -1,99 +1,281 @@
 package com.underwaterdepth;
 
-import java.util.HashMap;
-import java.util.Map;
+import com.google.gson.TypeAdapter;
+import com.google.gson.annotations.JsonAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.UnaryOperator;
 
 /**
  * Per-player configuration for underwater depth HUD
  *
+ * Configs are immutable snapshots - a change builds a new snapshot with a new version and
+ * publishes it in one map write, so world threads never see a half-applied change. Each
+ * DiveState caches its player's snapshot and only looks it up again after a change has been
+ * published (see getChangeCount), and the version tells the HUD that settings changed.
+ *
  * @author BeyondSmash
  */
+@JsonAdapter(PlayerConfig.Adapter.class)
 public class PlayerConfig {
 
     private static final ConcurrentHashMap<UUID, PlayerConfig> configs = new ConcurrentHashMap<>();
 
-    private boolean enabled = true;
-    private boolean seaLevelDisplayEnabled = true;
-    private int opacity = 100; // 0-100%
-    private boolean decimalEnabled = true;
+    // Version source - every snapshot gets a new one
+    private static final AtomicLong versions = new AtomicLong();
+
+    // Bumped after every published change - cached snapshots are stale once it moves
+    private static final AtomicLong changes = new AtomicLong();
+
+    // Players whose HUD is off - the depth pass skips them before any state lookup
+    private static final Set<UUID> disabledPlayers = ConcurrentHashMap.newKeySet();
+
+    // Changes made while a player's settings were loading, replayed on the loaded config
+    // (a key is present from PlayerSettingsStore.onJoin until the load finishes)
+    private static final ConcurrentHashMap<UUID, UnaryOperator<PlayerConfig>> changesDuringLoad = new ConcurrentHashMap<>();
+    private static final UnaryOperator<PlayerConfig> NO_CHANGES = c -> c;
 
+    // Settings of players without a config of their own - shared, never put in the map
+    private static final PlayerConfig DEFAULT = new PlayerConfig();
+
+    private final boolean enabled;
+    private final boolean seaLevelDisplayEnabled;
+    private final int opacity; // 0-100%
+    private final boolean decimalEnabled;
+    private final boolean compactEnabled;
+
+    // Not saved - a loaded config gets a new version like any other snapshot
+    private final long version;
+
+    /**
+     * Default settings
+     */
     public PlayerConfig() {
-        // Public constructor for Gson deserialization
+        this(true, true, 100, true, false);
+    }
+
+    private PlayerConfig(boolean enabled, boolean seaLevelDisplayEnabled, int opacity,
+                         boolean decimalEnabled, boolean compactEnabled) {
+        this.enabled = enabled;
+        this.seaLevelDisplayEnabled = seaLevelDisplayEnabled;
+        this.opacity = Math.max(0, Math.min(100, opacity));
+        this.decimalEnabled = decimalEnabled;
+        this.compactEnabled = compactEnabled;
+        this.version = versions.incrementAndGet();
     }
 
     /**
-     * Get or create config for a player
+     * Get a player's config, or the shared defaults if they have none
+     * Nothing is inserted, so a lookup after removeConfig doesn't bring the player back
+     * Hot paths use DiveState.getConfig, which caches the snapshot
      */
     public static PlayerConfig getConfig(UUID uuid) {
-        return configs.computeIfAbsent(uuid, k -> new PlayerConfig());
+        PlayerConfig config = configs.get(uuid);
+        return config != null ? config : DEFAULT;
+    }
+
+    /**
+     * Replace a player's config with a changed snapshot and publish it
+     *
+     * @param change Builds the new snapshot from the current one (with... methods)
+     * @return The published snapshot
+     */
+    public static PlayerConfig update(UUID uuid, UnaryOperator<PlayerConfig> change) {
+        PlayerConfig updated = configs.compute(uuid, (k, current) -> {
+            // Settings still loading - remember the change for the loaded config as well
+            changesDuringLoad.computeIfPresent(uuid, (k2, earlier) -> c -> change.apply(earlier.apply(c)));
+            return change.apply(current != null ? current : DEFAULT);
+        });
+        trackDisabled(uuid, updated);
+        changes.incrementAndGet();
+        return updated;
     }
 
     /**
      * Remove config for a player (cleanup on logout)
      */
     public static void removeConfig(UUID uuid) {
+        changesDuringLoad.remove(uuid);
         configs.remove(uuid);
+        disabledPlayers.remove(uuid);
+        changes.incrementAndGet();
+    }
+
+    /**
+     * A player's settings started loading - changes from now on are also kept for the loaded config
+     */
+    public static void beginLoad(UUID uuid) {
+        changesDuringLoad.put(uuid, NO_CHANGES);
+    }
+
+    /**
+     * Check if a player's settings are still loading
+     */
+    public static boolean isLoading(UUID uuid) {
+        return changesDuringLoad.containsKey(uuid);
     }
 
     /**
-     * Load all player configs from a map (used for deserialization)
+     * Install a config loaded from disk for an online player
+     * Settings the player changed before the load finished are applied on top of it
+     *
+     * @return true if changes were applied (the merged config still needs saving)
      */
-    public static void loadConfigs(Map<String, PlayerConfig> configMap) {
-        configs.clear();
-        for (Map.Entry<String, PlayerConfig> entry : configMap.entrySet()) {
-            try {
-                UUID uuid = UUID.fromString(entry.getKey());
-                configs.put(uuid, entry.getValue());
-            } catch (IllegalArgumentException e) {
-                // Skip invalid UUIDs
+    public static boolean putLoadedConfig(UUID uuid, PlayerConfig loaded) {
+        boolean[] changedDuringLoad = {false};
+        PlayerConfig installed = configs.compute(uuid, (k, current) -> {
+            UnaryOperator<PlayerConfig> pending = changesDuringLoad.remove(uuid);
+            if (pending == null) {
+                // No load in flight - keep changes already made
+                return current != null && !current.isDefault() ? current : loaded;
             }
-        }
+            changedDuringLoad[0] = pending != NO_CHANGES;
+            return pending.apply(loaded);
+        });
+        trackDisabled(uuid, installed);
+        changes.incrementAndGet();
+        return changedDuringLoad[0];
+    }
+
+    /**
+     * Loading finished without a stored config (nothing saved, or the read failed)
+     * The current config - defaults plus any changes made meanwhile - stays
+     *
+     * @return true if the player changed settings while loading (not saved yet)
+     */
+    public static boolean endLoad(UUID uuid) {
+        UnaryOperator<PlayerConfig> pending = changesDuringLoad.remove(uuid);
+        return pending != null && pending != NO_CHANGES;
     }
 
     /**
-     * Get all player configs as a map (used for serialization)
+     * Check if a player has the HUD turned off - one empty check while nobody has
      */
-    public static Map<String, PlayerConfig> getAllConfigs() {
-        Map<String, PlayerConfig> configMap = new HashMap<>();
-        for (Map.Entry<UUID, PlayerConfig> entry : configs.entrySet()) {
-            configMap.put(entry.getKey().toString(), entry.getValue());
+    public static boolean isHudDisabled(UUID uuid) {
+        return !disabledPlayers.isEmpty() && disabledPlayers.contains(uuid);
+    }
+
+    private static void trackDisabled(UUID uuid, PlayerConfig config) {
+        if (config.isEnabled()) {
+            disabledPlayers.remove(uuid);
+        } else {
+            disabledPlayers.add(uuid);
         }
-        return configMap;
     }
 
-    // Getters and Setters
+    /**
+     * Number of configs held in memory
+     */
+    public static int getLoadedCount() {
+        return configs.size();
+    }
+
+    /**
+     * Changes published so far - a snapshot cached at one count is current until it moves
+     */
+    public static long getChangeCount() {
+        return changes.get();
+    }
+
+    /**
+     * Check if every setting is at its default (such configs are not saved)
+     */
+    public boolean isDefault() {
+        return enabled && seaLevelDisplayEnabled && opacity == 100 && decimalEnabled && !compactEnabled;
+    }
+
+    /**
+     * Version of this snapshot - differs between any two snapshots
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    // Getters and copy-on-write setters (each with... builds a new snapshot)
 
     public boolean isEnabled() {
         return enabled && opacity > 0;
     }
 
-    public void setEnabled(boolean enabled) {
-        this.enabled = enabled;
+    public PlayerConfig withEnabled(boolean enabled) {
+        return new PlayerConfig(enabled, seaLevelDisplayEnabled, opacity, decimalEnabled, compactEnabled);
     }
 
     public boolean isSeaLevelDisplayEnabled() {
         return seaLevelDisplayEnabled;
     }
 
-    public void setSeaLevelDisplayEnabled(boolean enabled) {
-        this.seaLevelDisplayEnabled = enabled;
+    public PlayerConfig withSeaLevelDisplayEnabled(boolean enabled) {
+        return new PlayerConfig(this.enabled, enabled, opacity, decimalEnabled, compactEnabled);
     }
 
     public int getOpacity() {
         return opacity;
     }
 
-    public void setOpacity(int opacity) {
-        this.opacity = Math.max(0, Math.min(100, opacity));
+    public PlayerConfig withOpacity(int opacity) {
+        return new PlayerConfig(enabled, seaLevelDisplayEnabled, opacity, decimalEnabled, compactEnabled);
     }
 
     public boolean isDecimalEnabled() {
         return decimalEnabled;
     }
 
-    public void setDecimalEnabled(boolean enabled) {
-        this.decimalEnabled = enabled;
+    public PlayerConfig withDecimalEnabled(boolean enabled) {
+        return new PlayerConfig(this.enabled, seaLevelDisplayEnabled, opacity, enabled, compactEnabled);
+    }
+
+    public boolean isCompactEnabled() {
+        return compactEnabled;
+    }
+
+    public PlayerConfig withCompactEnabled(boolean enabled) {
+        return new PlayerConfig(this.enabled, seaLevelDisplayEnabled, opacity, decimalEnabled, enabled);
+    }
+
+    /**
+     * JSON form of a config - reads through the constructor, so Gson never writes the final fields
+     * Settings missing from the file keep their default
+     */
+    static final class Adapter extends TypeAdapter<PlayerConfig> {
+
+        @Override
+        public void write(JsonWriter out, PlayerConfig config) throws IOException {
+            out.beginObject();
+            out.name("enabled").value(config.enabled);
+            out.name("seaLevelDisplayEnabled").value(config.seaLevelDisplayEnabled);
+            out.name("opacity").value(config.opacity);
+            out.name("decimalEnabled").value(config.decimalEnabled);
+            out.name("compactEnabled").value(config.compactEnabled);
+            out.endObject();
+        }
+
+        @Override
+        public PlayerConfig read(JsonReader in) throws IOException {
+            boolean enabled = DEFAULT.enabled;
+            boolean seaLevelDisplayEnabled = DEFAULT.seaLevelDisplayEnabled;
+            int opacity = DEFAULT.opacity;
+            boolean decimalEnabled = DEFAULT.decimalEnabled;
+            boolean compactEnabled = DEFAULT.compactEnabled;
+
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "enabled" -> enabled = in.nextBoolean();
+                    case "seaLevelDisplayEnabled" -> seaLevelDisplayEnabled = in.nextBoolean();
+                    case "opacity" -> opacity = in.nextInt();
+                    case "decimalEnabled" -> decimalEnabled = in.nextBoolean();
+                    case "compactEnabled" -> compactEnabled = in.nextBoolean();
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            return new PlayerConfig(enabled, seaLevelDisplayEnabled, opacity, decimalEnabled, compactEnabled);
+        }
     }
 }
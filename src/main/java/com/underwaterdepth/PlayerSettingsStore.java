@@ -0,0 +1,229 @@
+package com.underwaterdepth;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+import com.hypixel.hytale.logger.HytaleLogger;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+
+/**
+ * Player settings store - only online players are kept in memory
+ *
+ * Settings live in 256 shard files keyed by the first two hex digits of the UUID
+ * (players/3f.json), so joining reads one small file and startup reads nothing.
+ * Configs are loaded on the settings thread when a player joins and evicted when they leave.
+ * Players on default settings are not written at all.
+ *
+ * @author BeyondSmash
+ */
+public class PlayerSettingsStore {
+
+    private static final String SHARD_DIRECTORY = "players";
+    private static final String MIGRATED_SUFFIX = ".migrated";
+
+    private static final Type SHARD_TYPE = new TypeToken<Map<String, PlayerConfig>>(){}.getType();
+
+    private final Path shardDirectory;
+    private final Path legacyFile;
+    private final Gson gson;
+    private final HytaleLogger logger;
+    private final SettingsPersister persister;
+
+    // Players currently connected - loads finishing after a disconnect are dropped
+    private final Set<UUID> onlinePlayers = ConcurrentHashMap.newKeySet();
+
+    public PlayerSettingsStore(Path dataDirectory, String legacyFileName, Gson gson, HytaleLogger logger) {
+        this.shardDirectory = dataDirectory.resolve(SHARD_DIRECTORY);
+        this.legacyFile = dataDirectory.resolve(legacyFileName);
+        this.gson = gson;
+        this.logger = logger;
+        this.persister = new SettingsPersister(this::writeChanges, logger);
+    }
+
+    /**
+     * Start the store - converts the old single-file settings on the settings thread
+     */
+    public void start() {
+        persister.execute(this::migrateLegacyFile);
+    }
+
+    /**
+     * Player joined - load their settings in the background
+     * Until the load finishes PlayerConfig.getConfig returns defaults
+     */
+    public void onJoin(UUID uuid) {
+        onlinePlayers.add(uuid);
+        PlayerConfig.beginLoad(uuid);
+        persister.execute(() -> load(uuid));
+    }
+
+    /**
+     * Player left - drop their config from memory (unsaved changes are already snapshotted)
+     */
+    public void onDisconnect(UUID uuid) {
+        onlinePlayers.remove(uuid);
+        PlayerConfig.removeConfig(uuid);
+    }
+
+    /**
+     * Queue a player's changed settings for saving
+     * While their settings are loading nothing is queued - the change is saved merged with
+     * the loaded config, instead of defaults plus the change overwriting their shard entry
+     */
+    public void markDirty(UUID uuid) {
+        if (PlayerConfig.isLoading(uuid)) {
+            return;
+        }
+        persister.markDirty(uuid, PlayerConfig.getConfig(uuid));
+    }
+
+    /**
+     * Write pending changes now (blocks until written)
+     */
+    public void flush() {
+        persister.flush();
+    }
+
+    public int getOnlineCount() {
+        return onlinePlayers.size();
+    }
+
+    /**
+     * Stop the settings thread and write pending changes
+     */
+    public void shutdown() {
+        persister.shutdown();
+        onlinePlayers.clear();
+    }
+
+    /**
+     * Load one player's config (settings thread)
+     */
+    private void load(UUID uuid) {
+        if (!onlinePlayers.contains(uuid)) {
+            return;
+        }
+
+        // Changes not written yet are newer than the shard (quick reconnect)
+        PlayerConfig loaded = persister.getPending(uuid);
+        if (loaded == null) {
+            try {
+                loaded = readShard(shardFile(uuid)).get(uuid.toString());
+            } catch (IOException e) {
+                logger.at(Level.WARNING).log("Failed to load settings for player %s: %s", uuid, e.getMessage());
+                // Stored settings unknown - keep what the player has without overwriting the shard
+                PlayerConfig.endLoad(uuid);
+                return;
+            }
+        }
+
+        // Nothing saved = defaults, which getConfig already provides
+        if (!onlinePlayers.contains(uuid)) {
+            return;
+        }
+        boolean changedDuringLoad = loaded != null ? PlayerConfig.putLoadedConfig(uuid, loaded) : PlayerConfig.endLoad(uuid);
+        if (changedDuringLoad) {
+            markDirty(uuid);
+        }
+    }
+
+    /**
+     * Merge changed configs into their shard files (settings thread, or caller on shutdown)
+     */
+    private void writeChanges(Map<UUID, PlayerConfig> changes) throws IOException {
+        Map<Path, Map<UUID, PlayerConfig>> byShard = new HashMap<>();
+        for (Map.Entry<UUID, PlayerConfig> entry : changes.entrySet()) {
+            byShard.computeIfAbsent(shardFile(entry.getKey()), k -> new HashMap<>()).put(entry.getKey(), entry.getValue());
+        }
+
+        for (Map.Entry<Path, Map<UUID, PlayerConfig>> shardChanges : byShard.entrySet()) {
+            Path file = shardChanges.getKey();
+            Map<String, PlayerConfig> shard = readShard(file);
+            for (Map.Entry<UUID, PlayerConfig> entry : shardChanges.getValue().entrySet()) {
+                if (entry.getValue().isDefault()) {
+                    shard.remove(entry.getKey().toString());
+                } else {
+                    shard.put(entry.getKey().toString(), entry.getValue());
+                }
+            }
+            writeShard(file, shard);
+        }
+    }
+
+    /**
+     * Convert player_settings.json to shard files, dropping default configs
+     * The old file is kept as player_settings.json.migrated
+     */
+    private void migrateLegacyFile() {
+        if (!Files.exists(legacyFile)) {
+            return;
+        }
+
+        try {
+            Map<String, PlayerConfig> legacy = gson.fromJson(Files.readString(legacyFile), SHARD_TYPE);
+            Map<UUID, PlayerConfig> custom = new HashMap<>();
+            int skipped = 0;
+            if (legacy != null) {
+                for (Map.Entry<String, PlayerConfig> entry : legacy.entrySet()) {
+                    try {
+                        UUID uuid = UUID.fromString(entry.getKey());
+                        if (entry.getValue() != null && !entry.getValue().isDefault()) {
+                            custom.put(uuid, entry.getValue());
+                        } else {
+                            skipped++;
+                        }
+                    } catch (IllegalArgumentException e) {
+                        // Skip invalid UUIDs
+                        skipped++;
+                    }
+                }
+            }
+
+            writeChanges(custom);
+            Files.move(legacyFile, legacyFile.resolveSibling(legacyFile.getFileName() + MIGRATED_SUFFIX), StandardCopyOption.REPLACE_EXISTING);
+            logger.at(Level.INFO).log("Migrated player settings to %s (%d saved, %d default or invalid dropped)", shardDirectory, custom.size(), skipped);
+        } catch (IOException | JsonParseException e) {
+            logger.at(Level.WARNING).log("Failed to migrate player settings from %s: %s", legacyFile, e.getMessage());
+        }
+    }
+
+    private Path shardFile(UUID uuid) {
+        return shardDirectory.resolve(uuid.toString().substring(0, 2) + ".json");
+    }
+
+    private Map<String, PlayerConfig> readShard(Path file) throws IOException {
+        Map<String, PlayerConfig> shard = new TreeMap<>();
+        if (!Files.exists(file)) {
+            return shard;
+        }
+        try {
+            Map<String, PlayerConfig> stored = gson.fromJson(Files.readString(file), SHARD_TYPE);
+            if (stored != null) {
+                shard.putAll(stored);
+            }
+        } catch (JsonParseException e) {
+            // Never overwrite a shard we could not read - other players' settings are in it
+            throw new IOException("Corrupt settings shard " + file.getFileName() + ": " + e.getMessage(), e);
+        }
+        return shard;
+    }
+
+    private void writeShard(Path file, Map<String, PlayerConfig> shard) throws IOException {
+        if (shard.isEmpty()) {
+            Files.deleteIfExists(file);
+        } else {
+            SettingsPersister.writeAtomically(file, gson.toJson(shard));
+        }
+    }
+}
@@ -0,0 +1,247 @@
+package com.underwaterdepth;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Server-wide tuning values, loaded from server_config.json in the data directory
+ *
+ * Each load builds a new immutable snapshot that is published through one volatile
+ * reference. Hot-path code reads ServerConfig.get() once (per pass or per update) and uses
+ * that snapshot throughout, so it sees a consistent set of values without locking, and
+ * /wdepth reload takes effect on the next pass without a restart.
+ *
+ * The "worlds" section overrides sea level, gauge range and resolution, update rate and
+ * HUD variant per world name (see WorldProfile); anything not set there uses the server values.
+ *
+ * @author BeyondSmash
+ */
+public final class ServerConfig {
+
+    public static final String FILE_NAME = "server_config.json";
+
+    // Bounds for values that size arrays or drive the update loop
+    private static final int MIN_MARKER_COUNT = 2;
+    private static final int MAX_MARKER_COUNT = 200;
+    private static final long MIN_UPDATE_PERIOD_MILLIS = 20;
+    private static final long MAX_UPDATE_PERIOD_MILLIS = 1000;
+
+    // The legacy layout has exactly #Marker0 - #Marker59
+    private static final int LEGACY_MARKER_COUNT = 60;
+
+    /**
+     * File contents - plain fields with defaults, so missing keys keep their default
+     */
+    private static final class Values {
+        int seaLevel = 115;
+        int gaugeRange = 20;
+        int markerCount = 60;
+        float surfaceSnap = 0.3f;
+        float showThreshold = 0.5f;
+        float directionStartSpeed = 0.3f;
+        float directionStopSpeed = 0.12f;
+        long updatePeriodMillis = 100;
+        String gaugeLayout = "single";
+        int compactThreshold = 100;
+        int hudBudget = 2000;
+        int metricsPort = 0;
+        Map<String, WorldValues> worlds = new LinkedHashMap<>();
+    }
+
+    /**
+     * One world's overrides - unset keys use the server values
+     */
+    private static final class WorldValues {
+        Integer seaLevel;
+        Integer gaugeRange;
+        Integer markerCount;
+        Long updatePeriodMillis;
+        String gaugeLayout;
+    }
+
+    private static volatile ServerConfig current = new ServerConfig(new Values(), null);
+
+    private final float surfaceSnap;
+    private final float showThreshold;
+    private final float directionStartSpeed;
+    private final float directionStopSpeed;
+    private final int compactThreshold;
+    private final int hudBudget;
+    private final int metricsPort;
+
+    // Profile of worlds without an entry in "worlds", and the configured ones by world name
+    private final WorldProfile defaultProfile;
+    private final Map<String, WorldProfile> worldProfiles = new HashMap<>();
+
+    // Display tables by gauge geometry (carried over from the previous snapshot when unchanged)
+    private final Map<Long, GaugeDisplayTable> displayTables = new HashMap<>();
+
+    private ServerConfig(Values values, ServerConfig previous) {
+        this.surfaceSnap = Math.max(0f, values.surfaceSnap);
+        this.showThreshold = Math.max(0f, values.showThreshold);
+        this.directionStartSpeed = Math.max(0f, values.directionStartSpeed);
+        this.directionStopSpeed = Math.max(0f, Math.min(directionStartSpeed, values.directionStopSpeed));
+        this.compactThreshold = values.compactThreshold;
+        this.hudBudget = values.hudBudget;
+        this.metricsPort = values.metricsPort;
+
+        Map<Long, GaugeDisplayTable> reusable = previous != null ? previous.displayTables : Map.of();
+        this.defaultProfile = buildProfile(null, values.seaLevel, values.gaugeRange, values.markerCount,
+            values.updatePeriodMillis, values.gaugeLayout, reusable);
+        if (values.worlds != null) {
+            for (Map.Entry<String, WorldValues> world : values.worlds.entrySet()) {
+                WorldValues w = world.getValue();
+                if (w == null) {
+                    continue;
+                }
+                worldProfiles.put(world.getKey(), buildProfile(world.getKey(),
+                    w.seaLevel != null ? w.seaLevel : values.seaLevel,
+                    w.gaugeRange != null ? w.gaugeRange : values.gaugeRange,
+                    w.markerCount != null ? w.markerCount : values.markerCount,
+                    w.updatePeriodMillis != null ? w.updatePeriodMillis : values.updatePeriodMillis,
+                    w.gaugeLayout != null ? w.gaugeLayout : values.gaugeLayout,
+                    reusable));
+            }
+        }
+    }
+
+    /**
+     * Validate one profile's values and attach the display table for its gauge geometry
+     */
+    private WorldProfile buildProfile(String name, int seaLevel, int gaugeRange, int markerCount, long updatePeriodMillis,
+                                      String layoutName, Map<Long, GaugeDisplayTable> reusable) {
+        GaugeLayout layout = GaugeLayout.fromName(layoutName);
+        int range = Math.max(1, gaugeRange);
+        int markers = layout == GaugeLayout.LEGACY
+            ? LEGACY_MARKER_COUNT
+            : Math.max(MIN_MARKER_COUNT, Math.min(MAX_MARKER_COUNT, markerCount));
+        long period = Math.max(MIN_UPDATE_PERIOD_MILLIS, Math.min(MAX_UPDATE_PERIOD_MILLIS, updatePeriodMillis));
+
+        long geometry = ((long) range << 32) | markers;
+        GaugeDisplayTable table = displayTables.get(geometry);
+        if (table == null) {
+            table = reusable.get(geometry);
+            if (table == null) {
+                table = new GaugeDisplayTable(range, markers);
+            }
+            displayTables.put(geometry, table);
+        }
+        return new WorldProfile(name, seaLevel, range, markers, period, layout, table);
+    }
+
+    /**
+     * Current snapshot - read once and keep it for the whole pass or update
+     */
+    public static ServerConfig get() {
+        return current;
+    }
+
+    /**
+     * Read the config file and publish it as the current snapshot
+     * A missing file is created with the defaults
+     *
+     * @return The published snapshot
+     * @throws IOException if the file can't be read or isn't valid JSON - the current snapshot stays
+     */
+    public static synchronized ServerConfig load(Path dataDirectory, Gson gson) throws IOException {
+        Path file = dataDirectory.resolve(FILE_NAME);
+
+        Values values;
+        if (Files.exists(file)) {
+            try {
+                values = gson.fromJson(Files.readString(file, StandardCharsets.UTF_8), Values.class);
+            } catch (JsonParseException e) {
+                throw new IOException("invalid JSON in " + FILE_NAME + ": " + e.getMessage(), e);
+            }
+            if (values == null) {
+                values = new Values();
+            }
+        } else {
+            values = new Values();
+            SettingsPersister.writeAtomically(file, gson.toJson(values));
+        }
+
+        ServerConfig config = new ServerConfig(values, current);
+        current = config;
+        return config;
+    }
+
+    /**
+     * Profile for a world - resolve once when the world is registered and cache it,
+     * never per player (worlds without an entry get the server default profile)
+     */
+    public WorldProfile resolveProfile(String worldName) {
+        WorldProfile profile = worldName != null ? worldProfiles.get(worldName) : null;
+        return profile != null ? profile : defaultProfile;
+    }
+
+    /**
+     * Profile built from the server values (worlds without their own entry)
+     */
+    public WorldProfile getDefaultProfile() {
+        return defaultProfile;
+    }
+
+    /**
+     * Number of worlds with their own profile
+     */
+    public int getWorldProfileCount() {
+        return worldProfiles.size();
+    }
+
+    /**
+     * Depths closer than this to the surface read as 0m
+     */
+    public float getSurfaceSnap() {
+        return surfaceSnap;
+    }
+
+    /**
+     * The HUD shows only at least this far from the surface
+     */
+    public float getShowThreshold() {
+        return showThreshold;
+    }
+
+    /**
+     * Vertical speed (m/s) needed to show the direction arrow
+     */
+    public float getDirectionStartSpeed() {
+        return directionStartSpeed;
+    }
+
+    /**
+     * Vertical speed (m/s) below which the direction arrow disappears again
+     */
+    public float getDirectionStopSpeed() {
+        return directionStopSpeed;
+    }
+
+    /**
+     * Visible HUDs in one world that force the compact profile (0 = never)
+     */
+    public int getCompactThreshold() {
+        return compactThreshold;
+    }
+
+    /**
+     * HUD updates per second shared by all worlds (0 or less = unlimited)
+     */
+    public int getHudBudget() {
+        return hudBudget;
+    }
+
+    /**
+     * Loopback OpenMetrics port (0 = off) - only read at startup
+     */
+    public int getMetricsPort() {
+        return metricsPort;
+    }
+}
@@ -0,0 +1,204 @@
+package com.underwaterdepth;
+
+import com.hypixel.hytale.logger.HytaleLogger;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+
+/**
+ * Write-behind persistence for player settings
+ *
+ * Commands only hand over the changed config snapshot - it is written on a background
+ * thread after a short delay, so a burst of changes from any number of players becomes one write.
+ * Files are written to a temp file that is fsynced and atomically renamed over the target,
+ * so a crash mid-write leaves the previous file intact.
+ *
+ * @author BeyondSmash
+ */
+public class SettingsPersister {
+
+    /**
+     * Writes a batch of changed configs to disk
+     */
+    public interface ChangeWriter {
+        void write(Map<UUID, PlayerConfig> changes) throws IOException;
+    }
+
+    // How long to wait for more changes before writing
+    private static final long COALESCE_DELAY_MILLIS = 2000;
+
+    // Retry delay after a failed write
+    private static final long RETRY_DELAY_MILLIS = 10000;
+
+    private final ChangeWriter changeWriter;
+    private final HytaleLogger logger;
+
+    // Snapshot of each player's config changed since the last successful write
+    private final Map<UUID, PlayerConfig> pending = new ConcurrentHashMap<>();
+
+    // Whether a flush is already queued on the writer thread
+    private final AtomicBoolean flushScheduled = new AtomicBoolean(false);
+
+    private final ScheduledExecutorService writer;
+
+    public SettingsPersister(ChangeWriter changeWriter, HytaleLogger logger) {
+        this.changeWriter = changeWriter;
+        this.logger = logger;
+        this.writer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "UnderwaterDepth-Settings");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Queue a player's changed config for saving - returns immediately
+     * Call after the changed snapshot was published
+     */
+    public void markDirty(UUID player, PlayerConfig config) {
+        pending.put(player, config);
+        DepthMetrics.SETTINGS_CHANGES.increment();
+        scheduleFlush(COALESCE_DELAY_MILLIS);
+    }
+
+    /**
+     * Unsaved config for a player, if any (newer than what is on disk)
+     */
+    public PlayerConfig getPending(UUID player) {
+        return pending.get(player);
+    }
+
+    /**
+     * Number of players with unsaved changes
+     */
+    public int getDirtyCount() {
+        return pending.size();
+    }
+
+    /**
+     * Run a task on the writer thread, ordered with writes (used for loading)
+     *
+     * @return false if the writer has been shut down
+     */
+    public boolean execute(Runnable task) {
+        try {
+            writer.execute(task);
+            return true;
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+    }
+
+    private void scheduleFlush(long delayMillis) {
+        if (flushScheduled.compareAndSet(false, true)) {
+            try {
+                writer.schedule(this::backgroundFlush, delayMillis, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                // Writer already shut down - the shutdown flush picks the change up
+                flushScheduled.set(false);
+            }
+        }
+    }
+
+    private void backgroundFlush() {
+        flushScheduled.set(false);
+        if (!flush()) {
+            scheduleFlush(RETRY_DELAY_MILLIS);
+        }
+    }
+
+    /**
+     * Write all pending changes
+     * Runs on the writer thread, or on the caller thread during shutdown
+     *
+     * @return false if the write failed (changes are kept for a retry)
+     */
+    public synchronized boolean flush() {
+        if (pending.isEmpty()) {
+            return true;
+        }
+
+        // Take the pending changes before writing - changes made during the write trigger another flush
+        Map<UUID, PlayerConfig> changes = new HashMap<>();
+        for (Map.Entry<UUID, PlayerConfig> entry : pending.entrySet()) {
+            changes.put(entry.getKey(), entry.getValue());
+        }
+        for (Map.Entry<UUID, PlayerConfig> entry : changes.entrySet()) {
+            pending.remove(entry.getKey(), entry.getValue());
+        }
+
+        long start = System.nanoTime();
+        try {
+            changeWriter.write(changes);
+            DepthMetrics.SETTINGS_WRITE_DURATION.record(System.nanoTime() - start);
+            logger.at(Level.FINE).log("Saved player settings (%d changed)", changes.size());
+            return true;
+        } catch (IOException | RuntimeException e) {
+            // Put the changes back unless the player changed settings again meanwhile
+            for (Map.Entry<UUID, PlayerConfig> entry : changes.entrySet()) {
+                pending.putIfAbsent(entry.getKey(), entry.getValue());
+            }
+            logger.at(Level.WARNING).log("Failed to save player settings: %s", e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Write a file through a temp file that is forced to disk, then renamed over the target
+     */
+    public static void writeAtomically(Path target, String content) throws IOException {
+        writeAtomically(target, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Write a binary file through a temp file that is forced to disk, then renamed over the target
+     */
+    public static void writeAtomically(Path target, byte[] content) throws IOException {
+        Files.createDirectories(target.getParent());
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+
+        try (FileChannel channel = FileChannel.open(temp,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.wrap(content);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Stop the writer thread and write any pending changes on the calling thread
+     */
+    public void shutdown() {
+        writer.shutdownNow();
+        try {
+            writer.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+}
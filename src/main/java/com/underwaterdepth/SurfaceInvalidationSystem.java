@@ -0,0 +1,44 @@
+package com.underwaterdepth;
+
+import com.hypixel.hytale.component.ArchetypeChunk;
+import com.hypixel.hytale.component.CommandBuffer;
+import com.hypixel.hytale.component.Store;
+import com.hypixel.hytale.component.query.Query;
+import com.hypixel.hytale.component.system.EcsEvent;
+import com.hypixel.hytale.component.system.EntityEventSystem;
+import com.hypixel.hytale.math.vector.Vector3i;
+import com.hypixel.hytale.server.core.universe.PlayerRef;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+import java.util.function.Function;
+
+/**
+ * ECS event system that drops cached water surface columns when a player changes a block
+ * Registered once per block event type (break, place)
+ *
+ * @author BeyondSmash
+ */
+public class SurfaceInvalidationSystem<E extends EcsEvent> extends EntityEventSystem<EntityStore, E> {
+
+    private final UnderwaterDepthPlugin plugin;
+    private final Function<E, Vector3i> targetBlock;
+
+    public SurfaceInvalidationSystem(UnderwaterDepthPlugin plugin, Class<E> eventType, Function<E, Vector3i> targetBlock) {
+        super(eventType);
+        this.plugin = plugin;
+        this.targetBlock = targetBlock;
+    }
+
+    @Override
+    public void handle(int index, ArchetypeChunk<EntityStore> chunk, Store<EntityStore> store,
+                       CommandBuffer<EntityStore> commandBuffer, E event) {
+        Vector3i block = targetBlock.apply(event);
+        if (block != null) {
+            plugin.getWorldState(store.getExternalData().getWorld()).getSurfaceFinder().invalidate(block.getX(), block.getZ());
+        }
+    }
+
+    @Override
+    public Query<EntityStore> getQuery() {
+        return PlayerRef.getComponentType();
+    }
+}
@@ -56,9 +56,6 @@ public class TestDepthCommand extends AbstractCommand {
             return CompletableFuture.completedFuture(null);
         }
 
-        // Add world to plugin's known worlds for automatic detection
-        UnderwaterDepthPlugin.getInstance().addKnownWorld(world);
-
         // Run on world thread for ECS access
         CompletableFuture<Void> future = new CompletableFuture<>();
         world.execute(() -> {
@@ -83,13 +80,15 @@ public class TestDepthCommand extends AbstractCommand {
                 UnderwaterDepthPlugin plugin = UnderwaterDepthPlugin.getInstance();
 
                 // Get or create HUD with initial depth
-                DepthHud hud = plugin.getActiveHud(uuid);
+                GaugeHud hud = plugin.getActiveHud(world, uuid);
                 if (hud == null) {
-                    hud = new DepthHud(playerRefComponent, finalDepth, 0.0f);
-                    plugin.setActiveHud(uuid, hud);
-                    hud.show();
+                    DepthHud depthHud = new DepthHud(playerRefComponent, finalDepth, 0.0f, GaugeLayout.getDefault(),
+                        GaugeDisplayTable.getInstance(), PlayerConfig.getConfig(uuid));
+                    plugin.setActiveHud(world, uuid, depthHud);
+                    depthHud.show();
                 } else {
                     hud.updateDepth(finalDepth, 0.0f, 0);
+                    hud.flushPending();
                 }
 
                 context.sendMessage(Message.raw("Depth HUD shown with depth: " + Math.round(finalDepth) + "m").color("#55ff55"));
@@ -0,0 +1,115 @@
+package com.underwaterdepth;
+
+/**
+ * Timing wheel that decides when each diver is evaluated next
+ * One tick = one depth pass. Divers are linked into the slot of the pass they are
+ * due in (intrusive list through DiveState), so scheduling, cancelling and
+ * advancing are O(1) per diver with no allocation
+ *
+ * Owned by a WorldDepthState and only touched by that world's thread
+ *
+ * @author BeyondSmash
+ */
+public class TimingWheel {
+
+    private final DiveState[] slots;
+    private final int mask;
+    private long currentTick = 0;
+
+    /**
+     * @param slotCount Number of slots (rounded up to a power of two) - bounds the longest delay
+     */
+    public TimingWheel(int slotCount) {
+        int size = Integer.highestOneBit(Math.max(2, slotCount - 1)) << 1;
+        this.slots = new DiveState[size];
+        this.mask = size - 1;
+    }
+
+    /**
+     * Longest delay (in ticks) that can be scheduled
+     */
+    public int getMaxDelay() {
+        return slots.length - 1;
+    }
+
+    /**
+     * Schedule a diver to become due after the given number of ticks
+     * Replaces any earlier schedule for the same diver
+     */
+    public void schedule(DiveState state, int delayTicks) {
+        cancel(state);
+
+        int delay = Math.max(1, Math.min(getMaxDelay(), delayTicks));
+        int slot = (int) ((currentTick + delay) & mask);
+
+        DiveState head = slots[slot];
+        state.setWheelNext(head);
+        state.setWheelPrev(null);
+        if (head != null) {
+            head.setWheelPrev(state);
+        }
+        slots[slot] = state;
+        state.setWheelSlot(slot);
+    }
+
+    /**
+     * Remove a diver from the wheel (no-op if not scheduled)
+     */
+    public void cancel(DiveState state) {
+        int slot = state.getWheelSlot();
+        if (slot < 0) {
+            return;
+        }
+
+        DiveState prev = state.getWheelPrev();
+        DiveState next = state.getWheelNext();
+        if (prev != null) {
+            prev.setWheelNext(next);
+        } else {
+            slots[slot] = next;
+        }
+        if (next != null) {
+            next.setWheelPrev(prev);
+        }
+
+        state.setWheelNext(null);
+        state.setWheelPrev(null);
+        state.setWheelSlot(-1);
+    }
+
+    /**
+     * Move to the next tick and mark every diver in its slot as due
+     */
+    public void advance() {
+        currentTick++;
+        int slot = (int) (currentTick & mask);
+
+        DiveState state = slots[slot];
+        slots[slot] = null;
+        while (state != null) {
+            DiveState next = state.getWheelNext();
+            state.setWheelNext(null);
+            state.setWheelPrev(null);
+            state.setWheelSlot(-1);
+            state.setEvaluationDue(true);
+            state = next;
+        }
+    }
+
+    /**
+     * Unlink every diver (shutdown)
+     */
+    public void clear() {
+        for (int i = 0; i < slots.length; i++) {
+            DiveState state = slots[i];
+            slots[i] = null;
+            while (state != null) {
+                DiveState next = state.getWheelNext();
+                state.setWheelNext(null);
+                state.setWheelPrev(null);
+                state.setWheelSlot(-1);
+                state = next;
+            }
+        }
+    }
+}
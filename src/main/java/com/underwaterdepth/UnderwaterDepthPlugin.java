@@ -1,26 +1,23 @@
 package com.underwaterdepth;
 
+import com.hypixel.hytale.component.Ref;
 import com.hypixel.hytale.server.core.plugin.JavaPlugin;
 import com.hypixel.hytale.server.core.plugin.JavaPluginInit;
 import com.hypixel.hytale.server.core.entity.entities.Player;
 import com.hypixel.hytale.server.core.universe.PlayerRef;
-import com.hypixel.hytale.server.core.entity.movement.MovementStatesComponent;
-import com.hypixel.hytale.server.core.modules.entity.component.TransformComponent;
 import com.hypixel.hytale.server.core.universe.world.World;
 import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
-import com.hypixel.hytale.server.core.event.events.player.AddPlayerToWorldEvent;
+import com.hypixel.hytale.server.core.universe.world.events.AddWorldEvent;
+import com.hypixel.hytale.server.core.universe.world.events.RemoveWorldEvent;
+import com.hypixel.hytale.server.core.event.events.ecs.BreakBlockEvent;
+import com.hypixel.hytale.server.core.event.events.ecs.PlaceBlockEvent;
+import com.hypixel.hytale.server.core.event.events.player.PlayerConnectEvent;
 import com.hypixel.hytale.server.core.event.events.player.PlayerDisconnectEvent;
-import com.hypixel.hytale.component.Ref;
-import com.hypixel.hytale.component.Store;
 import com.buuz135.mhud.MultipleHUD;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
-import com.google.gson.reflect.TypeToken;
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
 import java.util.*;
-import java.util.concurrent.*;
 import java.util.logging.Level;
 
 /**
@@ -35,48 +32,52 @@ public class UnderwaterDepthPlugin extends JavaPlugin {
     private static final String PLUGIN_NAME = "UnderwaterDepth";
     private static final String VERSION = "1.0.4";
 
-    // Configuration file name
+    // Single-file player settings from older versions (migrated to per-prefix shards)
     private static final String PLAYER_SETTINGS_FILE = "player_settings.json";
 
     // Gson for JSON serialization
     private final Gson gson = new GsonBuilder().setPrettyPrinting().create();
 
-    // Hytale World Constants (based on community data)
-    private static final int WORLD_BOTTOM = 0;      // Y=0 (bedrock layer around Y=3)
-    private static final int WORLD_HEIGHT = 320;    // Y=320 (build limit)
-    private static final int SEA_LEVEL = 115;       // Y=115 (water surface level)
-
-    // Layer heights for reference (not used in depth calc)
-    private static final int STONE_LEVEL = 111;     // Stone layer starts
-    private static final int BASALT_LAYER_1 = 80;   // First basalt layer
-    private static final int BACK_TO_STONE = 75;    // Returns to stone
-    private static final int BASALT_LAYER_2 = 51;   // Second basalt layer
-    private static final int VOLCANIC_LAYER = 38;   // Volcanic layer
-    private static final int BEDROCK_LAYER = 3;     // Bedrock starts
+    // Sea level, gauge range, update rate and HUD variant come from each world's WorldProfile
+    // (Y=115 sea level by default - see ServerConfig)
 
     private static UnderwaterDepthPlugin instance;
 
     // MultipleHUD integration flag
     private boolean isMultipleHUDAvailable = false;
 
-    // Track HUDs for each player
-    private final Map<UUID, DepthHud> activeHuds = new HashMap<>();
+    // Dive state partitioned by owning world - each partition is only touched by its world thread
+    private final WorldRegistry worldRegistry = new WorldRegistry();
 
-    // Track previous underwater state to detect transitions
-    private final Map<UUID, Boolean> previousUnderwaterState = new HashMap<>();
+    // The depth pass run by every world - HUDs go through MultipleHUD, finished dives into the stats
+    private final DepthPass<PlayerRef> depthPass = new DepthPass<>(
+        new HudSink<>() {
+            @Override
+            public GaugeHud show(PlayerRef playerRef, float depth, float seaLevelDepth, GaugeLayout layout,
+                                 GaugeDisplayTable displayTable, PlayerConfig config) {
+                return showDepthHud(playerRef, depth, seaLevelDepth, layout, displayTable, config);
+            }
 
-    // Track water entry Y coordinate for local depth calculation
-    private final Map<UUID, Double> waterEntryY = new HashMap<>();
+            @Override
+            public void hide(PlayerRef playerRef, GaugeHud hud) {
+                hideDepthHud(playerRef, hud);
+            }
+        },
+        this::recordDive,
+        UnderwaterDepthPlugin::getWorldName,
+        new HudUpdateBudget(ServerConfig.get().getHudBudget()));
+
+    // Optional /metrics endpoint (null when disabled)
+    private MetricsHttpEndpoint metricsEndpoint;
 
-    // Track previous depth for directional arrows (rising/descending)
-    private final Map<UUID, Float> previousDepth = new HashMap<>();
+    // Player settings of online players (created in setup)
+    private PlayerSettingsStore settingsStore;
 
-    // Track known worlds for player iteration
-    private final Set<World> knownWorlds = Collections.newSetFromMap(new ConcurrentHashMap<>());
+    // Lifetime dive statistics of every player (null if the stats file could not be opened)
+    private DiveStatsStore diveStats;
 
-    // Scheduled executor for depth updates
-    private ScheduledExecutorService scheduler;
-    private ScheduledFuture<?> updateTask;
+    // Deepest-dive leaderboards (created in setup)
+    private DiveLeaderboard leaderboard;
 
     public UnderwaterDepthPlugin(JavaPluginInit init) {
         super(init);
@@ -89,24 +90,39 @@ public class UnderwaterDepthPlugin extends JavaPlugin {
 
 
     /**
-     * Get the active HUD for a player
+     * Get the dive state partition for a world (created on first use)
      */
-    public DepthHud getActiveHud(UUID playerUuid) {
-        return activeHuds.get(playerUuid);
+    public WorldDepthState getWorldState(World world) {
+        return worldRegistry.get(world);
+    }
+
+    public WorldRegistry getWorldRegistry() {
+        return worldRegistry;
+    }
+
+    public DepthPass<PlayerRef> getDepthPass() {
+        return depthPass;
+    }
+
+    public HudUpdateBudget getHudBudget() {
+        return depthPass.getHudBudget();
     }
 
     /**
-     * Set the active HUD for a player
+     * Get the active HUD for a player
+     * Must be called on the world thread
      */
-    public void setActiveHud(UUID playerUuid, DepthHud hud) {
-        activeHuds.put(playerUuid, hud);
+    public GaugeHud getActiveHud(World world, UUID playerUuid) {
+        DiveState state = getWorldState(world).getDiver(playerUuid);
+        return state != null ? state.getHud() : null;
     }
 
     /**
-     * Add a world to the known worlds set for player iteration
+     * Set the active HUD for a player
+     * Must be called on the world thread
      */
-    public void addKnownWorld(World world) {
-        knownWorlds.add(world);
+    public void setActiveHud(World world, UUID playerUuid, GaugeHud hud) {
+        depthPass.claimDiveState(getWorldState(world), playerUuid).setHud(hud);
     }
 
     public void init() {
@@ -119,25 +135,45 @@ public class UnderwaterDepthPlugin extends JavaPlugin {
         getLogger().at(Level.INFO).log("Setting up " + PLUGIN_NAME + "...");
 
         try {
-            // Load player settings from disk
-            loadPlayerSettings();
+            // Server tuning values - everything below reads them through ServerConfig.get()
+            loadServerConfig();
+
+            // Player settings are loaded per player on join (old settings file is migrated in the background)
+            settingsStore = new PlayerSettingsStore(getDataDirectory(), PLAYER_SETTINGS_FILE, gson, getLogger());
+            settingsStore.start();
+
+            // Lifetime dive statistics, memory-mapped next to the settings
+            openDiveStats();
+            startLeaderboard();
+
+            // Route hot-path diagnostics through the plugin logger
+            DepthDiagnostics.init(getLogger());
 
             // Register commands
             getCommandRegistry().registerCommand(new TestDepthCommand());
             getCommandRegistry().registerCommand(new WDepthCommand());
             getLogger().at(Level.INFO).log("Registered commands: /testdepth, /wdepth");
 
-            // Register player join event to discover worlds
-            // Use "default" world name as key - events are dispatched per world
-            getEventRegistry().register(AddPlayerToWorldEvent.class, "default", this::onPlayerJoinWorld);
-            getLogger().at(Level.INFO).log("Registered player join event");
-
-            // Register player disconnect event to cleanup HUD state
+            // Register player connect event to load settings, disconnect event to cleanup HUD state
+            getEventRegistry().registerGlobal(PlayerConnectEvent.class, this::onPlayerConnect);
             getEventRegistry().registerGlobal(PlayerDisconnectEvent.class, this::onPlayerDisconnect);
-            getLogger().at(Level.INFO).log("Registered player disconnect event");
+            getLogger().at(Level.INFO).log("Registered player connect/disconnect events");
+
+            // Track loaded worlds - partitions of unloaded worlds are dropped
+            getEventRegistry().registerGlobal(AddWorldEvent.class, worldRegistry::onWorldAdded);
+            getEventRegistry().registerGlobal(RemoveWorldEvent.class, worldRegistry::onWorldRemoved);
 
-            // Start scheduled depth update task
-            startDepthUpdateTask();
+            // Register depth update system - ticks with every world
+            getEntityStoreRegistry().registerSystem(new DepthUpdateTask(this));
+            getLogger().at(Level.INFO).log("Registered depth update system (every %dms, %d world profiles)",
+                ServerConfig.get().getDefaultProfile().getUpdatePeriodMillis(), ServerConfig.get().getWorldProfileCount());
+
+            // Drop cached water surface columns when players break or place blocks
+            getEntityStoreRegistry().registerSystem(new SurfaceInvalidationSystem<>(this, BreakBlockEvent.class, BreakBlockEvent::getTargetBlock));
+            getEntityStoreRegistry().registerSystem(new SurfaceInvalidationSystem<>(this, PlaceBlockEvent.class, PlaceBlockEvent::getTargetBlock));
+
+            // Start the metrics endpoint if a port was configured
+            startMetricsEndpoint();
 
             getLogger().at(Level.INFO).log(PLUGIN_NAME + " setup complete!");
             getLogger().at(Level.INFO).log("Depth meter HUD ready - automatic underwater detection active");
@@ -148,12 +184,10 @@ public class UnderwaterDepthPlugin extends JavaPlugin {
     }
 
     /**
-     * Called when a player joins a world - track the world for automatic detection
+     * Called when a player connects - load their settings in the background
      */
-    private void onPlayerJoinWorld(AddPlayerToWorldEvent event) {
-        World world = event.getWorld();
-        knownWorlds.add(world);
-        getLogger().at(Level.INFO).log("Player joined world, now tracking for underwater detection");
+    private void onPlayerConnect(PlayerConnectEvent event) {
+        settingsStore.onJoin(event.getPlayerRef().getUuid());
     }
 
     /**
@@ -164,483 +198,216 @@ public class UnderwaterDepthPlugin extends JavaPlugin {
         UUID uuid = event.getPlayerRef().getUuid();
 
         // Clean up ALL state for disconnecting player
-        activeHuds.remove(uuid);
-        waterEntryY.remove(uuid);
-        previousUnderwaterState.remove(uuid);
-        previousDepth.remove(uuid);
+        // World partitions drop it on their next pass (on their own thread)
+        depthPass.dropHandoff(uuid);
+        DepthDiagnostics.forgetPlayer(uuid);
+        settingsStore.onDisconnect(uuid);
+        for (WorldDepthState worldState : worldRegistry.all()) {
+            worldState.queueRemoval(uuid);
+        }
 
         getLogger().at(Level.INFO).log("[DISCONNECT] Cleaned up HUD state for player: " + uuid);
     }
 
     /**
-     * Start the scheduled task that updates depth HUD for all players
-     * Runs 4 times per second (250ms intervals) for smooth updates
+     * Show the depth HUD using the MultipleHUD API for proper cross-mod compatibility
+     * MultipleHUD handles showing internally, so we don't call hud.show() ourselves
      */
-    private void startDepthUpdateTask() {
-        getLogger().at(Level.INFO).log("Starting depth update task...");
-
-        try {
-            // Create single-threaded scheduler
-            scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
-                Thread thread = new Thread(r, "UnderwaterDepth-UpdateTask");
-                thread.setDaemon(true);
-                return thread;
-            });
-
-            // Schedule depth updates at ~10 Hz (100ms intervals)
-            updateTask = scheduler.scheduleAtFixedRate(() -> {
-                try {
-                    // Discover and check all worlds by iterating existing HUD players
-                    // and also collecting worlds from those players
-                    Set<World> worldsToCheck = new HashSet<>(knownWorlds);
-
-                    // Add worlds from any active HUD players
-                    for (DepthHud hud : new ArrayList<>(activeHuds.values())) {
-                        try {
-                            Ref<EntityStore> ref = hud.getPlayerRef().getReference();
-                            if (ref != null && ref.isValid()) {
-                                World world = ref.getStore().getExternalData().getWorld();
-                                worldsToCheck.add(world);
-                                knownWorlds.add(world);
-                            }
-                        } catch (Exception e) {
-                            // Ignore invalid references
-                        }
-                    }
-
-                    // Check all players in all discovered worlds
-                    for (World world : worldsToCheck) {
-                        // Must run on world thread for ECS access
-                        world.execute(() -> {
-                            try {
-                                // Iterate all player references in this world
-                                for (PlayerRef playerRefComp : world.getPlayerRefs()) {
-                                    Ref<EntityStore> playerRef = playerRefComp.getReference();
-                                    if (playerRef != null && playerRef.isValid()) {
-                                        Store<EntityStore> store = playerRef.getStore();
-                                        Player player = store.getComponent(playerRef, Player.getComponentType());
-                                        if (player != null) {
-                                            updatePlayerDepth(player);
-                                        }
-                                    }
-                                }
-                            } catch (Exception e) {
-                                getLogger().at(Level.FINE).log("Error updating players in world: " + e.getMessage());
-                            }
-                        });
-                    }
-                } catch (Exception e) {
-                    getLogger().at(Level.WARNING).log("Error in update task: " + e.getMessage());
-                }
-            }, 100, 100, TimeUnit.MILLISECONDS); // Start after 100ms, repeat every 100ms
-
-            getLogger().at(Level.INFO).log("Depth update task started (~10 updates/second)");
-        } catch (Exception e) {
-            getLogger().at(Level.WARNING).log("Failed to start update task: " + e.getMessage());
-            e.printStackTrace();
+    private GaugeHud showDepthHud(PlayerRef playerRef, float depth, float seaLevelDepth, GaugeLayout layout,
+                                  GaugeDisplayTable displayTable, PlayerConfig config) {
+        Player player = getPlayer(playerRef);
+        if (player == null) {
+            return null;
         }
+        DepthHud hud = new DepthHud(playerRef, depth, seaLevelDepth, layout, displayTable, config);
+        MultipleHUD.getInstance().setCustomHud(player, playerRef, DepthHud.ID, hud);
+        return hud;
     }
 
     /**
-     * Update depth HUD for a player
-     * Called periodically to check if player is underwater and update display
+     * Hide the depth HUD using the MultipleHUD API
      */
-    public void updatePlayerDepth(Player player) {
-        try {
-            Ref<EntityStore> playerRef = player.getReference();
-            Store<EntityStore> store = playerRef.getStore();
-
-            // Get PlayerRef component for UUID
-            PlayerRef playerRefComp = store.getComponent(
-                playerRef,
-                PlayerRef.getComponentType()
-            );
-            UUID playerUuid = playerRefComp.getUuid();
-
-            // Check if HUD is enabled for this player
-            PlayerConfig config = PlayerConfig.getConfig(playerUuid);
-            if (!config.isEnabled()) {
-                // HUD disabled - hide if showing
-                if (activeHuds.containsKey(playerUuid)) {
-                    hideDepthHud(player, playerUuid);
-                }
-                return;
-            }
-
-            // Get movement states to check if underwater
-            MovementStatesComponent movementComp = store.getComponent(
-                playerRef,
-                MovementStatesComponent.getComponentType()
-            );
-
-            boolean isUnderwater = movementComp.getMovementStates().inFluid;
-            boolean isJumping = movementComp.getMovementStates().jumping;
-            Boolean wasUnderwater = previousUnderwaterState.get(playerUuid);
-
-            // Player just entered water - record entry point but don't show HUD yet
-            if (isUnderwater && (wasUnderwater == null || !wasUnderwater)) {
-                // Record water entry Y coordinate
-                TransformComponent transform = store.getComponent(playerRef, TransformComponent.getComponentType());
-                if (transform != null) {
-                    waterEntryY.put(playerUuid, transform.getPosition().getY());
-                }
-                getLogger().at(Level.FINE).log("Player " + playerUuid + " entered water - tracking depth");
-            }
-            // Player just surfaced - hide HUD and clear entry point
-            else if (!isUnderwater && wasUnderwater != null && wasUnderwater) {
-                hideDepthHud(player, playerUuid);
-                waterEntryY.remove(playerUuid); // Clear entry point
-                getLogger().at(Level.FINE).log("Player " + playerUuid + " surfaced - hiding depth HUD");
-            }
-            // Player is underwater - check depth and show/update HUD if needed
-            else if (isUnderwater) {
-                updateDepthWithThreshold(player, playerRefComp, store);
-            }
-
-            // Update state tracking
-            previousUnderwaterState.put(playerUuid, isUnderwater);
-
-        } catch (Exception e) {
-            getLogger().at(Level.WARNING).log("Error updating player depth: " + e.getMessage());
+    private void hideDepthHud(PlayerRef playerRef, GaugeHud hud) {
+        Player player = getPlayer(playerRef);
+        if (player != null) {
+            MultipleHUD.getInstance().hideCustomHud(player, playerRef, DepthHud.ID);
         }
     }
 
     /**
-     * Show the depth HUD for a player
+     * Resolve the Player component of a player entity (null once the entity is gone)
      */
-    private void showDepthHud(Player player, PlayerRef playerRefComp, float initialDepth, float initialSeaLevelDepth) {
-        UUID uuid = playerRefComp.getUuid();
-
-        // Create new HUD if doesn't exist
-        if (!activeHuds.containsKey(uuid)) {
-            try {
-                getLogger().at(Level.INFO).log("[SHOW HUD] Player " + uuid + " - Creating new HUD with depth: " + initialDepth + "m, sea level: " + initialSeaLevelDepth + "m");
-
-                DepthHud hud = new DepthHud(playerRefComp, initialDepth, initialSeaLevelDepth);
-
-                // Show the HUD using MultipleHUD API for proper cross-mod compatibility
-                // MultipleHUD handles showing internally, so we don't call hud.show() ourselves
-                getLogger().at(Level.INFO).log("[SHOW HUD] Registering HUD with MultipleHUD");
-                MultipleHUD.getInstance().setCustomHud(player, playerRefComp, DepthHud.ID, hud);
-
-                // CRITICAL: Only add to activeHuds AFTER successful registration
-                // This prevents "can't rejoin" issue if setCustomHud() throws exception
-                activeHuds.put(uuid, hud);
-
-                getLogger().at(Level.INFO).log("[SHOW HUD] HUD shown successfully and added to active HUDs");
-            } catch (Exception e) {
-                getLogger().at(Level.SEVERE).log("[SHOW HUD] FAILED to show HUD for player " + uuid + ": " + e.getMessage(), e);
-                getLogger().at(Level.SEVERE).log("[SHOW HUD] Player will not see depth meter but won't be kicked. Error details:");
-                e.printStackTrace();
-                // Don't add to activeHuds if show failed - prevents crash loop on rejoin
-            }
+    private static Player getPlayer(PlayerRef playerRef) {
+        Ref<EntityStore> ref = playerRef.getReference();
+        if (ref == null || !ref.isValid()) {
+            return null;
         }
+        return ref.getStore().getComponent(ref, Player.getComponentType());
     }
 
     /**
-     * Hide the depth HUD for a player using MultipleHUD API
+     * Name of the world a player's entity is in (null while it has none, e.g. mid-transfer)
      */
-    private void hideDepthHud(Player player, UUID uuid) {
-        try {
-            DepthHud hud = activeHuds.remove(uuid);
-
-            if (hud != null) {
-                getLogger().at(Level.INFO).log("[HIDE HUD] Player " + uuid + " - Hiding via MultipleHUD API");
-
-                // Get player reference component
-                Ref<EntityStore> playerRef = player.getReference();
-                if (playerRef != null && playerRef.isValid()) {
-                    Store<EntityStore> store = playerRef.getStore();
-                    if (store != null) {
-                        PlayerRef playerRefComp = store.getComponent(
-                            playerRef,
-                            PlayerRef.getComponentType()
-                        );
-
-                        if (playerRefComp != null) {
-                            // Use MultipleHUD API to hide HUD
-                            MultipleHUD.getInstance().hideCustomHud(player, playerRefComp, DepthHud.ID);
-                            getLogger().at(Level.INFO).log("[HIDE HUD] HUD hidden via MultipleHUD");
-                        }
-                    }
-                }
-            } else {
-                getLogger().at(Level.INFO).log("[HIDE HUD] Player " + uuid + " - No active HUD to hide");
-            }
-        } catch (Exception e) {
-            getLogger().at(Level.WARNING).log("Error hiding HUD for player " + uuid + ": " + e.getMessage());
-            e.printStackTrace();
+    private static String getWorldName(PlayerRef playerRef) {
+        Ref<EntityStore> ref = playerRef.getReference();
+        if (ref == null || !ref.isValid()) {
+            return null;
         }
+        World world = ref.getStore().getExternalData().getWorld();
+        return world != null ? world.getName() : null;
     }
 
     /**
-     * Update depth with threshold check - only show HUD if depth >= 0.5m or <= -0.5m
-     * This prevents HUD from showing during surface swimming
+     * Add a finished dive to the player's lifetime statistics and the leaderboards
      */
-    private void updateDepthWithThreshold(Player player, PlayerRef playerRefComp, Store<EntityStore> store) {
-        UUID uuid = playerRefComp.getUuid();
-        Ref<EntityStore> playerRef = player.getReference();
-
-        // Calculate depth using real position
-        float depth = calculateDepth(playerRef, store);
-
-        // If very close to water entry point (within 0.3m), treat as surface (0m)
-        // This prevents showing "-1m" or "+1m" when bobbing at the surface
-        if (Math.abs(depth) < 0.3f) {
-            depth = 0.0f;
+    private void recordDive(UUID playerUuid, String username, float maxDepth, long durationMillis, String worldName) {
+        long now = System.currentTimeMillis();
+        if (diveStats != null) {
+            diveStats.recordDive(playerUuid, maxDepth, durationMillis, now);
         }
+        if (leaderboard != null) {
+            leaderboard.recordDive(playerUuid, username, maxDepth, worldName, now);
+        }
+    }
 
-        // Check if depth meets threshold (≥0.5m below OR ≥0.5m above entry point)
-        boolean shouldShowHud = Math.abs(depth) >= 0.5f;
-
-        DepthHud hud = activeHuds.get(uuid);
-
-        if (shouldShowHud) {
-            // Calculate sea level depth using rounded-up water surface position
-            // This gives clean whole numbers (e.g., Y=113.6 rounds to 114, shows as "1m below sea level")
-            Double entryY = waterEntryY.get(uuid);
-            float seaLevelDepth = 0.0f;
-            if (entryY != null) {
-                // Get current position for logging
-                TransformComponent transform = store.getComponent(playerRef, TransformComponent.getComponentType());
-                float currentY = transform != null ? (float) transform.getPosition().getY() : 0f;
-
-                // Round up entry Y to next whole number (ceiling), then add 1.0 for surface compensation
-                // Example: 113.6 -> ceil(113.6) = 114.0 -> 114.0 + 1.0 = 115.0
-                float roundedSurface = (float) Math.ceil(entryY.doubleValue()) + 1.0f;
-                // Calculate distance from sea level, then adjust by local depth
-                seaLevelDepth = (SEA_LEVEL - roundedSurface) + depth;
-
-                // Detailed logging for sea level calculation
-                getLogger().at(Level.INFO).log(String.format(
-                    "[SEA LEVEL] Entry Y: %.3f | Rounded Surface: %.1f (ceil+1) | Current Y: %.3f | Local Depth: %.1f | Sea Level Depth: %.1f",
-                    entryY.doubleValue(), roundedSurface, currentY, depth, seaLevelDepth
-                ));
-            }
+    /**
+     * Cleanup when plugin shuts down
+     * CRITICAL: Clear all player state to prevent stuck HUD errors
+     */
+    public void shutdown() {
+        getLogger().at(Level.INFO).log(PLUGIN_NAME + " shutting down...");
 
-            // MISMATCH FIX: Hide HUD and recalibrate when sea level is 0m
-            // This prevents showing misleading depths like -1.2m when at surface
-            if (Math.round(seaLevelDepth) == 0) {
-                // Recalibrate: Set local depth to 0m to match sea level
-                depth = 0.0f;
-                seaLevelDepth = 0.0f;
-
-                // Hide HUD since we're at surface
-                if (hud != null) {
-                    hideDepthHud(player, uuid);
-                }
-                return;
-            }
+        if (metricsEndpoint != null) {
+            metricsEndpoint.stop();
+            metricsEndpoint = null;
+        }
 
-            // Calculate direction (rising/descending)
-            Float prevDepth = previousDepth.get(uuid);
-            int direction = 0; // 0 = stationary, 1 = descending, -1 = rising
-            if (prevDepth != null) {
-                if (depth > prevDepth + 0.1f) {
-                    direction = 1; // Descending (going deeper)
-                } else if (depth < prevDepth - 0.1f) {
-                    direction = -1; // Rising (going shallower)
-                }
-            }
-            previousDepth.put(uuid, depth);
+        // Clear ALL player state to prevent "can't rejoin" issues
+        worldRegistry.clear();
+        depthPass.clearHandoffs();
+        DepthDiagnostics.clear();
 
-            // Show HUD if not already shown
-            if (hud == null) {
-                showDepthHud(player, playerRefComp, depth, seaLevelDepth);
-                hud = activeHuds.get(uuid);
-            }
+        // Write any settings changes still waiting for the background writer
+        if (settingsStore != null) {
+            settingsStore.shutdown();
+        }
 
-            // Update HUD with current depth, sea level, and direction
-            if (hud != null) {
-                hud.updateDepth(depth, seaLevelDepth, direction);
-            }
-        } else {
-            // Hide HUD if showing but depth < 0.5m
-            if (hud != null) {
-                hideDepthHud(player, uuid);
-            }
+        // Save the leaderboards and force dive statistics to disk
+        if (leaderboard != null) {
+            leaderboard.shutdown();
+            leaderboard = null;
+        }
+        if (diveStats != null) {
+            diveStats.shutdown();
+            diveStats = null;
         }
+
+        getLogger().at(Level.INFO).log(PLUGIN_NAME + " shutdown complete - all player state cleared");
     }
 
     /**
-     * Update the depth value displayed in the HUD
+     * Open the dive statistics file - the plugin works without it if that fails
      */
-    private void updateDepth(Player player, PlayerRef playerRefComp) {
-        UUID uuid = playerRefComp.getUuid();
-        DepthHud hud = activeHuds.get(uuid);
-
-        if (hud != null) {
-            // Get player reference and store for component access
-            Ref<EntityStore> playerRef = player.getReference();
-            Store<EntityStore> store = playerRef.getStore();
-
-            // Calculate depth using real position
-            float depth = calculateDepth(playerRef, store);
-
-            // Calculate sea level depth using rounded-up water surface position
-            Double entryY = waterEntryY.get(uuid);
-            float seaLevelDepth = 0.0f;
-            if (entryY != null) {
-                TransformComponent transform = store.getComponent(playerRef, TransformComponent.getComponentType());
-                float currentY = transform != null ? (float) transform.getPosition().getY() : 0f;
-
-                float roundedSurface = (float) Math.ceil(entryY.doubleValue()) + 1.0f;
-                seaLevelDepth = (SEA_LEVEL - roundedSurface) + depth;
-
-                getLogger().at(Level.INFO).log(String.format(
-                    "[SEA LEVEL UPDATE] Entry Y: %.3f | Rounded Surface: %.1f (ceil+1) | Current Y: %.3f | Local Depth: %.1f | Sea Level Depth: %.1f",
-                    entryY.doubleValue(), roundedSurface, currentY, depth, seaLevelDepth
-                ));
-            }
-
-            // Update HUD with new depth and sea level (no direction tracking in updatePlayerDepthManual)
-            hud.updateDepth(depth, seaLevelDepth, 0);
+    private void openDiveStats() {
+        DiveStatsStore store = new DiveStatsStore(getDataDirectory(), getLogger());
+        try {
+            store.open();
+            diveStats = store;
+        } catch (IOException e) {
+            getLogger().at(Level.WARNING).log("Failed to open dive stats file - dive statistics disabled: %s", e.getMessage());
         }
     }
 
+    public DiveStatsStore getDiveStats() {
+        return diveStats;
+    }
+
     /**
-     * Calculate player's LOCAL depth relative to water entry point
-     * Returns depth in meters (1 block = 1 meter)
-     *
-     * Positive values = below entry point (going deeper)
-     * Negative values = above entry point (going shallower/surfacing)
-     *
-     * Formula: depth = entryY - currentY
+     * Load the leaderboards - the first start seeds the server board from the lifetime dive statistics
      */
-    private float calculateDepth(Ref<EntityStore> playerRef, Store<EntityStore> store) {
-        try {
-            // Get player UUID
-            PlayerRef playerRefComp = store.getComponent(playerRef, PlayerRef.getComponentType());
-            UUID playerUuid = playerRefComp.getUuid();
-
-            // Get water entry Y coordinate
-            Double entryY = waterEntryY.get(playerUuid);
-            if (entryY == null) {
-                return 0.0f; // No entry point recorded
-            }
-
-            // Get TransformComponent for current player position
-            TransformComponent transform = store.getComponent(
-                playerRef,
-                TransformComponent.getComponentType()
-            );
-
-            if (transform != null) {
-                // Get precise Y position from transform
-                double playerY = transform.getPosition().getY();
-
-                // Calculate LOCAL depth relative to entry point
-                // Positive = below entry (deeper), Negative = above entry (shallower)
-                float localDepth = (float) (entryY - playerY);
-
-                return localDepth;
-            }
-        } catch (Exception e) {
-            getLogger().at(Level.WARNING).log("Failed to get player position: " + e.getMessage());
+    private void startLeaderboard() {
+        DiveLeaderboard board = new DiveLeaderboard(getDataDirectory(), getLogger());
+        if (!board.start() && diveStats != null) {
+            diveStats.forEach(stats -> board.recordDive(stats.uuid, null, stats.deepestDive, null, stats.lastDiveEpochMillis));
         }
+        leaderboard = board;
+    }
 
-        // Fallback: return 0 if position unavailable
-        return 0.0f;
+    public DiveLeaderboard getLeaderboard() {
+        return leaderboard;
     }
 
     /**
-     * Find the actual water surface Y coordinate above the player
-     * This will be needed for accurate depth in areas with varying water levels
-     *
-     * @param player The player to check
-     * @return Y coordinate of water surface (currently returns SEA_LEVEL constant)
-     *
-     * TODO: Implement block checking to find actual water/air boundary
-     * - Ray-cast upward from player position
-     * - Check each block until finding air
-     * - Handle cases: lakes (< sea level), oceans (= sea level), underwater caves
+     * Load the server config at startup - the built-in defaults stay in effect if it can't be read
      */
-    private float findWaterSurface(Player player) {
-        // TODO: When block API is available:
-        // 1. Get player position
-        // 2. Ray-cast upward checking blocks
-        // 3. Find first air block (water surface)
-        // 4. Return that Y coordinate
-
-        // For now, assume standard sea level
-        return SEA_LEVEL;
+    private void loadServerConfig() {
+        try {
+            ServerConfig config = ServerConfig.load(getDataDirectory(), gson);
+            depthPass.setHudBudget(new HudUpdateBudget(config.getHudBudget()));
+        } catch (IOException e) {
+            getLogger().at(Level.WARNING).log("Failed to load %s - using defaults: %s", ServerConfig.FILE_NAME, e.getMessage());
+        }
     }
 
     /**
-     * Extract default UI file from JAR to external config directory
-     * This allows users to edit the UI file without rebuilding the plugin
-     */
-    /**
-     * Cleanup when plugin shuts down
-     * CRITICAL: Clear all player state to prevent stuck HUD errors
+     * Reload the server config and publish the new snapshot (/wdepth reload)
+     * Depth passes pick it up on their next run; a changed update budget starts with a full bucket
+     *
+     * @return The new snapshot
+     * @throws IOException if the file can't be read - the previous snapshot stays in effect
      */
-    public void shutdown() {
-        getLogger().at(Level.INFO).log(PLUGIN_NAME + " shutting down...");
-
-        // Stop scheduled tasks
-        if (updateTask != null) {
-            updateTask.cancel(false);
+    public ServerConfig reloadServerConfig() throws IOException {
+        ServerConfig previous = ServerConfig.get();
+        ServerConfig config = ServerConfig.load(getDataDirectory(), gson);
+        worldRegistry.refreshProfiles(config);
+        if (config.getHudBudget() != previous.getHudBudget()) {
+            depthPass.setHudBudget(new HudUpdateBudget(config.getHudBudget()));
         }
-        if (scheduler != null) {
-            scheduler.shutdown();
-            try {
-                if (!scheduler.awaitTermination(5, TimeUnit.SECONDS)) {
-                    scheduler.shutdownNow();
-                }
-            } catch (InterruptedException e) {
-                scheduler.shutdownNow();
-            }
+        if (config.getMetricsPort() != previous.getMetricsPort()) {
+            getLogger().at(Level.INFO).log("Metrics port changed to %d - takes effect after a restart", config.getMetricsPort());
         }
-
-        // Clear ALL player state to prevent "can't rejoin" issues
-        activeHuds.clear();
-        previousUnderwaterState.clear();
-        waterEntryY.clear();
-        previousDepth.clear();
-        knownWorlds.clear();
-
-        getLogger().at(Level.INFO).log(PLUGIN_NAME + " shutdown complete - all player state cleared");
+        WorldProfile defaults = config.getDefaultProfile();
+        getLogger().at(Level.INFO).log("Reloaded %s (update period %dms, sea level %d, %d markers over %dm, %d world profiles)",
+            ServerConfig.FILE_NAME, defaults.getUpdatePeriodMillis(), defaults.getSeaLevel(), defaults.getMarkerCount(),
+            defaults.getGaugeRange(), config.getWorldProfileCount());
+        return config;
     }
 
     /**
-     * Load player settings from disk
+     * Start the loopback OpenMetrics endpoint when metricsPort is set in the server config
      */
-    private void loadPlayerSettings() {
-        Path settingsPath = getDataDirectory().resolve(PLAYER_SETTINGS_FILE);
+    private void startMetricsEndpoint() {
+        int port = ServerConfig.get().getMetricsPort();
+        if (port <= 0) {
+            return;
+        }
 
         try {
-            if (Files.exists(settingsPath)) {
-                String json = Files.readString(settingsPath);
-                Map<String, PlayerConfig> configMap = gson.fromJson(json, new TypeToken<Map<String, PlayerConfig>>(){}.getType());
-                if (configMap != null) {
-                    PlayerConfig.loadConfigs(configMap);
-                    getLogger().at(Level.INFO).log("Loaded player settings from %s (%d players)", settingsPath, configMap.size());
-                }
-            } else {
-                getLogger().at(Level.INFO).log("No existing player settings found - using defaults");
-            }
+            MetricsHttpEndpoint endpoint = new MetricsHttpEndpoint(port);
+            endpoint.start();
+            metricsEndpoint = endpoint;
+            getLogger().at(Level.INFO).log("Metrics endpoint listening on http://127.0.0.1:%d/metrics", port);
         } catch (IOException e) {
-            getLogger().at(Level.WARNING).log("Failed to load player settings: %s", e.getMessage());
+            getLogger().at(Level.WARNING).log("Failed to start metrics endpoint on port %d: %s", port, e.getMessage());
         }
     }
 
     /**
-     * Save player settings to disk
+     * Queue a player's changed settings for saving
+     * Returns immediately - the write happens on a background thread, merged with other changes
      */
-    public void savePlayerSettings() {
-        Path settingsPath = getDataDirectory().resolve(PLAYER_SETTINGS_FILE);
+    public void markSettingsDirty(UUID playerUuid) {
+        if (settingsStore != null) {
+            settingsStore.markDirty(playerUuid);
+        }
+    }
 
-        try {
-            // Ensure data directory exists
-            Files.createDirectories(getDataDirectory());
-
-            // Write player settings to JSON
-            Map<String, PlayerConfig> configMap = PlayerConfig.getAllConfigs();
-            String json = gson.toJson(configMap);
-            Files.writeString(settingsPath, json);
-            getLogger().at(Level.INFO).log("Saved player settings to %s (%d players)", settingsPath, configMap.size());
-        } catch (IOException e) {
-            getLogger().at(Level.WARNING).log("Failed to save player settings: %s", e.getMessage());
+    /**
+     * Save all pending player settings to disk now (blocks until written)
+     */
+    public void savePlayerSettings() {
+        if (settingsStore != null) {
+            settingsStore.flush();
         }
     }
 }
@@ -5,6 +5,8 @@ import com.hypixel.hytale.server.core.Message;
 import com.hypixel.hytale.server.core.command.system.AbstractCommand;
 import com.hypixel.hytale.server.core.command.system.CommandContext;
 import com.hypixel.hytale.server.core.entity.entities.Player;
+import com.hypixel.hytale.server.core.universe.PlayerRef;
+import com.hypixel.hytale.server.core.universe.world.World;
 import java.util.concurrent.CompletableFuture;
 
 /**
@@ -18,13 +20,23 @@ import java.util.concurrent.CompletableFuture;
  *   /wdepth sea off - Hide sea level display
  *   /wdepth decimal on - Enable decimal display
  *   /wdepth decimal off - Disable decimal display
+ *   /wdepth compact on - Use the compact HUD (whole-meter depth only)
+ *   /wdepth compact off - Use the full gauge
+ *   /wdepth top [n] - Show the deepest dives on the server
+ *   /wdepth top world [n] - Show the deepest dives in your world
+ *   /wdepth trace <on | off> [player] - Toggle per-player trace logging (admin)
+ *   /wdepth stats - Show runtime metrics (admin)
+ *   /wdepth reload - Reload server_config.json (admin)
  *
  * @author BeyondSmash
  */
 public class WDepthCommand extends AbstractCommand {
 
+    // Permission required for server-wide/diagnostic subcommands
+    public static final String ADMIN_PERMISSION = "beyondsmash.waterdepthgauge.admin";
+
     public WDepthCommand() {
-        super("wdepth", "Configure underwater depth HUD (usage: /wdepth <on | off | sea | decimal | help | credits> [value])");
+        super("wdepth", "Configure underwater depth HUD (usage: /wdepth <on | off | sea | decimal | compact | top | help | credits> [value])");
         setPermissionGroup(GameMode.Adventure);
         setAllowsExtraArguments(true);
     }
@@ -55,7 +67,7 @@ public class WDepthCommand extends AbstractCommand {
             try {
                 var playerRef = player.getReference();
                 var store = playerRef.getStore();
-                var playerRefComp = store.getComponent(playerRef, com.hypixel.hytale.server.core.universe.PlayerRef.getComponentType());
+                var playerRefComp = store.getComponent(playerRef, PlayerRef.getComponentType());
                 var uuid = playerRefComp.getUuid();
                 PlayerConfig config = PlayerConfig.getConfig(uuid);
 
@@ -85,14 +97,14 @@ public class WDepthCommand extends AbstractCommand {
                         break;
 
                     case "on":
-                        config.setEnabled(true);
-                        UnderwaterDepthPlugin.getInstance().savePlayerSettings();
+                        PlayerConfig.update(uuid, c -> c.withEnabled(true));
+                        UnderwaterDepthPlugin.getInstance().markSettingsDirty(uuid);
                         context.sendMessage(Message.raw("Underwater depth HUD enabled").color("#55ff55"));
                         break;
 
                     case "off":
-                        config.setEnabled(false);
-                        UnderwaterDepthPlugin.getInstance().savePlayerSettings();
+                        PlayerConfig.update(uuid, c -> c.withEnabled(false));
+                        UnderwaterDepthPlugin.getInstance().markSettingsDirty(uuid);
                         context.sendMessage(Message.raw("Underwater depth HUD disabled").color("#ff5555"));
                         break;
 
@@ -107,12 +119,12 @@ public class WDepthCommand extends AbstractCommand {
                             return;
                         }
                         if (args[1].equalsIgnoreCase("on")) {
-                            config.setSeaLevelDisplayEnabled(true);
-                            UnderwaterDepthPlugin.getInstance().savePlayerSettings();
+                            PlayerConfig.update(uuid, c -> c.withSeaLevelDisplayEnabled(true));
+                            UnderwaterDepthPlugin.getInstance().markSettingsDirty(uuid);
                             context.sendMessage(Message.raw("Sea level display enabled").color("#55ff55"));
                         } else if (args[1].equalsIgnoreCase("off")) {
-                            config.setSeaLevelDisplayEnabled(false);
-                            UnderwaterDepthPlugin.getInstance().savePlayerSettings();
+                            PlayerConfig.update(uuid, c -> c.withSeaLevelDisplayEnabled(false));
+                            UnderwaterDepthPlugin.getInstance().markSettingsDirty(uuid);
                             context.sendMessage(Message.raw("Sea level display disabled").color("#ff5555"));
                         } else {
                             context.sendMessage(Message.raw("Usage: /wdepth sea <on | off>").color("#ff5555"));
@@ -126,18 +138,69 @@ public class WDepthCommand extends AbstractCommand {
                             return;
                         }
                         if (args[1].equalsIgnoreCase("on")) {
-                            config.setDecimalEnabled(true);
-                            UnderwaterDepthPlugin.getInstance().savePlayerSettings();
+                            PlayerConfig.update(uuid, c -> c.withDecimalEnabled(true));
+                            UnderwaterDepthPlugin.getInstance().markSettingsDirty(uuid);
                             context.sendMessage(Message.raw("Decimal display enabled (e.g., 3.1m)").color("#55ff55"));
                         } else if (args[1].equalsIgnoreCase("off")) {
-                            config.setDecimalEnabled(false);
-                            UnderwaterDepthPlugin.getInstance().savePlayerSettings();
+                            PlayerConfig.update(uuid, c -> c.withDecimalEnabled(false));
+                            UnderwaterDepthPlugin.getInstance().markSettingsDirty(uuid);
                             context.sendMessage(Message.raw("Decimal display disabled (whole numbers only)").color("#ff5555"));
                         } else {
                             context.sendMessage(Message.raw("Usage: /wdepth decimal <on | off>").color("#ff5555"));
                         }
                         break;
 
+                    case "compact":
+                        if (args.length < 2) {
+                            context.sendMessage(Message.raw("Usage: /wdepth compact <on | off>").color("#ff5555"));
+                            future.complete(null);
+                            return;
+                        }
+                        if (args[1].equalsIgnoreCase("on")) {
+                            PlayerConfig.update(uuid, c -> c.withCompactEnabled(true));
+                            UnderwaterDepthPlugin.getInstance().markSettingsDirty(uuid);
+                            context.sendMessage(Message.raw("Compact HUD enabled (depth in whole meters, no gauge)").color("#55ff55"));
+                        } else if (args[1].equalsIgnoreCase("off")) {
+                            PlayerConfig.update(uuid, c -> c.withCompactEnabled(false));
+                            UnderwaterDepthPlugin.getInstance().markSettingsDirty(uuid);
+                            context.sendMessage(Message.raw("Compact HUD disabled (full gauge)").color("#ff5555"));
+                        } else {
+                            context.sendMessage(Message.raw("Usage: /wdepth compact <on | off>").color("#ff5555"));
+                        }
+                        break;
+
+                    case "top":
+                        handleTop(context, world, args);
+                        break;
+
+                    case "trace":
+                        if (!player.hasPermission(ADMIN_PERMISSION)) {
+                            context.sendMessage(Message.raw("You don't have permission to use this command").color("#ff5555"));
+                            break;
+                        }
+                        if (args.length < 2 || !(args[1].equalsIgnoreCase("on") || args[1].equalsIgnoreCase("off"))) {
+                            context.sendMessage(Message.raw("Usage: /wdepth trace <on | off> [player]").color("#ff5555"));
+                            break;
+                        }
+                        handleTrace(context, world, playerRefComp, args[1].equalsIgnoreCase("on"), args.length > 2 ? args[2] : null);
+                        break;
+
+                    case "stats":
+                        if (!player.hasPermission(ADMIN_PERMISSION)) {
+                            context.sendMessage(Message.raw("You don't have permission to use this command").color("#ff5555"));
+                            break;
+                        }
+                        showStats(context);
+                        break;
+
+                    case "reload":
+                        if (!player.hasPermission(ADMIN_PERMISSION)) {
+                            context.sendMessage(Message.raw("You don't have permission to use this command").color("#ff5555"));
+                            break;
+                        }
+                        handleReload(context, world);
+                        break;
+
                     default:
                         context.sendMessage(Message.raw("Unknown subcommand: " + subcommand).color("#ff5555"));
                         context.sendMessage(Message.raw("Use '/wdepth help' for command list").color("#aaaaaa"));
@@ -155,6 +218,151 @@ public class WDepthCommand extends AbstractCommand {
         return future;
     }
 
+    /**
+     * Switch trace logging for yourself or another player in the same world
+     */
+    private void handleTrace(CommandContext context, World world, PlayerRef self, boolean enabled, String targetName) {
+        PlayerRef target = self;
+        if (targetName != null) {
+            target = null;
+            for (PlayerRef candidate : world.getPlayerRefs()) {
+                if (targetName.equalsIgnoreCase(candidate.getUsername())) {
+                    target = candidate;
+                    break;
+                }
+            }
+            if (target == null) {
+                context.sendMessage(Message.raw("Player not found in this world: " + targetName).color("#ff5555"));
+                return;
+            }
+        }
+
+        DepthDiagnostics.setTrace(target.getUuid(), enabled);
+        String name = target.getUsername() != null ? target.getUsername() : target.getUuid().toString();
+        context.sendMessage(Message.raw("Trace logging " + (enabled ? "enabled" : "disabled") + " for " + name)
+            .color(enabled ? "#55ff55" : "#ff5555"));
+    }
+
+    /**
+     * Reload the server config - running passes finish with the old snapshot, the next ones use the new one
+     */
+    private void handleReload(CommandContext context, World world) {
+        UnderwaterDepthPlugin plugin = UnderwaterDepthPlugin.getInstance();
+        ServerConfig config;
+        try {
+            config = plugin.reloadServerConfig();
+        } catch (java.io.IOException e) {
+            context.sendMessage(Message.raw("Failed to reload " + ServerConfig.FILE_NAME + " - keeping the current config: " + e.getMessage()).color("#ff5555"));
+            return;
+        }
+
+        // Show what applies in the admin's own world
+        WorldProfile profile = plugin.getWorldState(world).getProfile();
+        context.sendMessage(Message.raw("Reloaded " + ServerConfig.FILE_NAME + " (" + config.getWorldProfileCount() + " world profiles)").color("#55ff55"));
+        context.sendMessage(statLine("Updates: ", "every " + profile.getUpdatePeriodMillis() + "ms in this world | budget "
+            + (config.getHudBudget() <= 0 ? "unlimited" : config.getHudBudget() + "/s") + " | compact above " + config.getCompactThreshold() + " HUDs"));
+        context.sendMessage(statLine("Gauge: ", profile.getGaugeLayout().name().toLowerCase() + " | " + profile.getMarkerCount() + " markers over "
+            + profile.getGaugeRange() + "m | sea level Y=" + profile.getSeaLevel()
+            + (profile.getName() != null ? " (profile " + profile.getName() + ")" : " (server default)")));
+        context.sendMessage(statLine("Thresholds: ", String.format("surface %.2fm | show %.2fm | arrow %.2f/%.2f m/s",
+            config.getSurfaceSnap(), config.getShowThreshold(), config.getDirectionStartSpeed(), config.getDirectionStopSpeed())));
+    }
+
+    /**
+     * Show the deepest-dive leaderboard - server-wide, or for the player's world
+     * Usage: /wdepth top [n] | /wdepth top world [n]
+     */
+    private void handleTop(CommandContext context, World world, String[] args) {
+        DiveLeaderboard leaderboard = UnderwaterDepthPlugin.getInstance().getLeaderboard();
+        if (leaderboard == null) {
+            context.sendMessage(Message.raw("Leaderboard is not available").color("#ff5555"));
+            return;
+        }
+
+        int argIndex = 1;
+        boolean worldBoard = args.length > argIndex && args[argIndex].equalsIgnoreCase("world");
+        if (worldBoard) {
+            argIndex++;
+        }
+
+        int count = 10;
+        if (args.length > argIndex) {
+            try {
+                count = Math.max(1, Math.min(DiveLeaderboard.MAX_ENTRIES, Integer.parseInt(args[argIndex])));
+            } catch (NumberFormatException e) {
+                context.sendMessage(Message.raw("Usage: /wdepth top [world] [1-" + DiveLeaderboard.MAX_ENTRIES + "]").color("#ff5555"));
+                return;
+            }
+        }
+
+        String boardName = worldBoard ? world.getName() : DiveLeaderboard.SERVER_BOARD;
+        context.sendMessage(Message.raw("=== Deepest Dives - " + (worldBoard ? world.getName() : "Server") + " ===").color("#ffaa00").bold(true));
+
+        java.util.List<DiveLeaderboard.Entry> top = leaderboard.top(boardName, count);
+        if (top.isEmpty()) {
+            context.sendMessage(Message.raw("No dives recorded yet").color("#aaaaaa"));
+            return;
+        }
+        for (int i = 0; i < top.size(); i++) {
+            DiveLeaderboard.Entry entry = top.get(i);
+            String name = entry.name != null ? entry.name : entry.uuid.toString().substring(0, 8);
+            String where = !worldBoard && entry.world != null ? " (" + entry.world + ")" : "";
+            context.sendMessage(Message.raw((i + 1) + ". " + name + " ").color("#ffffff")
+                .insert(Message.raw(String.format("%.1fm", entry.depth) + where).color("#55ffff")));
+        }
+    }
+
+    /**
+     * Show runtime metrics collected by DepthMetrics
+     */
+    private void showStats(CommandContext context) {
+        context.sendMessage(Message.raw("=== Water Depth Gauge - Runtime Stats ===").color("#ffaa00").bold(true));
+
+        LatencyHistogram pass = DepthMetrics.PASS_DURATION;
+        context.sendMessage(statLine("Depth passes: ", DepthMetrics.PASSES.sum() + " | mean " + formatMicros(pass.getMeanMicros())
+            + " | p50 " + formatMicros(pass.getPercentileMicros(50)) + " | p99 " + formatMicros(pass.getPercentileMicros(99))));
+
+        LatencyHistogram delay = DepthMetrics.PASS_DELAY;
+        context.sendMessage(statLine("Pass delay: ", "p50 " + formatMicros(delay.getPercentileMicros(50)) + " | p99 " + formatMicros(delay.getPercentileMicros(99))
+            + " | " + DepthMetrics.PASSES_COALESCED.sum() + " missed passes coalesced"));
+
+        context.sendMessage(statLine("Players: ", DepthMetrics.PLAYERS_SCANNED.sum() + " scanned | "
+            + DepthMetrics.PLAYERS_FILTERED.sum() + " filtered | " + DepthMetrics.PLAYERS_EVALUATED.sum() + " evaluated | " + DepthMetrics.EVALUATIONS_SKIPPED.sum() + " skipped by schedule"));
+
+        LatencyHistogram update = DepthMetrics.HUD_UPDATE_DURATION;
+        context.sendMessage(statLine("HUD updates: ", DepthMetrics.HUD_UPDATES_SENT.sum() + " sent | "
+            + DepthMetrics.HUD_UPDATES_SKIPPED.sum() + " skipped (no change) | "
+            + String.format("%.1f", DepthMetrics.getCommandsPerUpdate()) + " commands/update | render p99 " + formatMicros(update.getPercentileMicros(99))));
+
+        LatencyHistogram flush = DepthMetrics.HUD_FLUSH_DURATION;
+        HudUpdateBudget budget = UnderwaterDepthPlugin.getInstance().getHudBudget();
+        context.sendMessage(statLine("HUD flush: ", flush.getCount() + " batches | p50 " + formatMicros(flush.getPercentileMicros(50))
+            + " | p99 " + formatMicros(flush.getPercentileMicros(99)) + " | " + DepthMetrics.HUD_FLUSH_BACKLOG.get() + " waiting"
+            + " | budget " + (budget.isUnlimited() ? "unlimited" : budget.getUpdatesPerSecond() + "/s")));
+
+        context.sendMessage(statLine("HUD show/hide: ", DepthMetrics.HUD_SHOWS.perMinute() + " shows/min | "
+            + DepthMetrics.HUD_HIDES.perMinute() + " hides/min | show p99 " + formatMicros(DepthMetrics.HUD_SHOW_DURATION.getPercentileMicros(99))
+            + " | hide p99 " + formatMicros(DepthMetrics.HUD_HIDE_DURATION.getPercentileMicros(99))));
+
+        context.sendMessage(statLine("Surface lookups: ", DepthMetrics.SURFACE_CACHE_HITS.sum() + " cached | "
+            + DepthMetrics.SURFACE_SCANS.sum() + " scans | " + DepthMetrics.SURFACE_BLOCKS_SCANNED.sum() + " blocks read"));
+
+        LatencyHistogram settings = DepthMetrics.SETTINGS_WRITE_DURATION;
+        context.sendMessage(statLine("Settings writes: ", settings.getCount() + " for " + DepthMetrics.SETTINGS_CHANGES.sum() + " changes | mean " + formatMicros(settings.getMeanMicros())
+            + " | p99 " + formatMicros(settings.getPercentileMicros(99))));
+    }
+
+    private Message statLine(String label, String value) {
+        return Message.raw(label).color("#aaaaaa").insert(Message.raw(value).color("#ffffff"));
+    }
+
+    private String formatMicros(double micros) {
+        if (micros >= Long.MAX_VALUE) {
+            return ">1s";
+        }
+        return micros >= 1000 ? String.format("%.1fms", micros / 1000.0) : String.format("%.0fus", micros);
+    }
+
     private void showConfig(CommandContext context, PlayerConfig config) {
         // Title
         context.sendMessage(
@@ -187,11 +395,19 @@ public class WDepthCommand extends AbstractCommand {
                     .color(config.isDecimalEnabled() ? "#55ff55" : "#ff5555"))
         );
 
+        // Compact HUD
+        context.sendMessage(
+            Message.raw("Compact HUD: ")
+                .color("#aaaaaa")
+                .insert(Message.raw(config.isCompactEnabled() ? "ON" : "OFF")
+                    .color(config.isCompactEnabled() ? "#55ff55" : "#ff5555"))
+        );
+
         // Commands
         context.sendMessage(
             Message.raw("Commands: ")
                 .color("#aaaaaa")
-                .insert(Message.raw("/wdepth <on | off | sea | decimal | help | credits>")
+                .insert(Message.raw("/wdepth <on | off | sea | decimal | compact | top | help | credits>")
                     .color("#ffffff"))
         );
     }
@@ -208,7 +424,15 @@ public class WDepthCommand extends AbstractCommand {
         context.sendMessage(Message.raw("/wdepth off").color("#ffffff").insert(Message.raw(" - Disable depth gauge").color("#aaaaaa")));
         context.sendMessage(Message.raw("/wdepth sea <on|off>").color("#ffffff").insert(Message.raw(" - Toggle sea level display").color("#aaaaaa")));
         context.sendMessage(Message.raw("/wdepth decimal <on|off>").color("#ffffff").insert(Message.raw(" - Toggle decimal precision").color("#aaaaaa")));
+        context.sendMessage(Message.raw("/wdepth compact <on|off>").color("#ffffff").insert(Message.raw(" - Toggle compact HUD (whole meters, no gauge)").color("#aaaaaa")));
+        context.sendMessage(Message.raw("/wdepth top [n]").color("#ffffff").insert(Message.raw(" - Show the deepest dives on the server").color("#aaaaaa")));
+        context.sendMessage(Message.raw("/wdepth top world [n]").color("#ffffff").insert(Message.raw(" - Show the deepest dives in your world").color("#aaaaaa")));
         context.sendMessage(Message.raw("/wdepth credits").color("#ffffff").insert(Message.raw(" - Show plugin credits").color("#aaaaaa")));
+        if (context.sender().hasPermission(ADMIN_PERMISSION)) {
+            context.sendMessage(Message.raw("/wdepth trace <on|off> [player]").color("#ffffff").insert(Message.raw(" - Toggle trace logging (admin)").color("#aaaaaa")));
+            context.sendMessage(Message.raw("/wdepth stats").color("#ffffff").insert(Message.raw(" - Show runtime metrics (admin)").color("#aaaaaa")));
+            context.sendMessage(Message.raw("/wdepth reload").color("#ffffff").insert(Message.raw(" - Reload server_config.json (admin)").color("#aaaaaa")));
+        }
         context.sendMessage(Message.raw(""));
         context.sendMessage(Message.raw("Examples:").color("#ffaa00"));
         context.sendMessage(Message.raw("  /wdepth sea off").color("#888888").insert(Message.raw(" - Hide sea level depth").color("#666666")));
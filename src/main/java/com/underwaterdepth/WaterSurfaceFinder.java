@@ -0,0 +1,225 @@
+package com.underwaterdepth;
+
+import java.util.Arrays;
+
+/**
+ * Finds the water surface above a diver by scanning up the block column
+ *
+ * Results are cached per (x, z) column as the fluid span that was scanned, so divers
+ * anywhere inside the same span reuse it and a diver sinking below it only scans the
+ * new blocks. Entries are dropped when a block in the column changes, after a short TTL
+ * (fluids can flow without a block event), and least recently used first beyond MAX_COLUMNS.
+ *
+ * One instance per world, only used on the world thread.
+ *
+ * @author BeyondSmash
+ */
+public class WaterSurfaceFinder {
+
+    // Returned when no surface was found (unloaded chunk, or deeper than MAX_SCAN_BLOCKS)
+    public static final float UNKNOWN = Float.NaN;
+
+    // Furthest a scan goes up from the diver
+    private static final int MAX_SCAN_BLOCKS = 200;
+
+    // Columns kept in the cache
+    private static final int MAX_COLUMNS = 4096;
+
+    // Hash buckets of the column cache (power of two, never resized)
+    private static final int BUCKETS = 8192;
+
+    // Cached columns older than this are rescanned
+    private static final long COLUMN_TTL_NANOS = 5_000_000_000L;
+
+    /**
+     * A scanned run of fluid blocks in one column
+     */
+    private static final class Column {
+        long key;           // Packed (x, z)
+        int fluidBottomY;   // Lowest block known to be fluid
+        int surfaceY;       // First non-fluid block above the span (= water surface)
+        long scannedNanos;
+
+        Column nextInBucket;
+        Column older;       // Access order for LRU eviction
+        Column newer;
+    }
+
+    private final FluidProbe probe;
+
+    // (x, z) column -> scanned span, keyed on the packed long without boxing
+    private final Column[] buckets = new Column[BUCKETS];
+    private int columnCount = 0;
+
+    // Least and most recently used columns
+    private Column eldest;
+    private Column newest;
+
+    public WaterSurfaceFinder(FluidProbe probe) {
+        this.probe = probe;
+    }
+
+    /**
+     * Find the Y of the water surface above a position
+     *
+     * @return Surface Y (top face of the highest connected fluid block), or UNKNOWN
+     */
+    public float findSurface(double x, double y, double z, long nowNanos) {
+        int blockX = (int) Math.floor(x);
+        int blockY = (int) Math.floor(y);
+        int blockZ = (int) Math.floor(z);
+        long key = columnKey(blockX, blockZ);
+
+        Column column = getColumn(key);
+        if (column != null && nowNanos - column.scannedNanos > COLUMN_TTL_NANOS) {
+            removeColumn(column);
+            column = null;
+        }
+
+        // Inside the known span - no scan needed
+        if (column != null && blockY >= column.fluidBottomY && blockY < column.surfaceY) {
+            DepthMetrics.SURFACE_CACHE_HITS.increment();
+            return column.surfaceY;
+        }
+
+        DepthMetrics.SURFACE_SCANS.increment();
+        if (!probe.isColumnLoaded(blockX, blockZ)) {
+            return UNKNOWN;
+        }
+
+        // Below the known span - scan up to it; reaching it means the same body of water
+        int limit = blockY + MAX_SCAN_BLOCKS;
+        boolean extendsSpan = column != null && blockY < column.fluidBottomY;
+        int scanTop = extendsSpan ? Math.min(column.fluidBottomY, limit) : limit;
+
+        int scanY = blockY;
+        while (scanY < scanTop && probe.isFluid(blockX, scanY, blockZ)) {
+            scanY++;
+        }
+        DepthMetrics.SURFACE_BLOCKS_SCANNED.add(scanY - blockY + 1);
+
+        if (extendsSpan && scanY == column.fluidBottomY) {
+            column.fluidBottomY = blockY;
+            return column.surfaceY;
+        }
+        if (scanY >= limit) {
+            return UNKNOWN;
+        }
+        if (scanY == blockY) {
+            // Feet block is not fluid - diver is bobbing at the surface, which is the top of
+            // the block they float in (nothing worth caching)
+            return blockY + 1;
+        }
+
+        // New span (first scan, different pocket, or a diver above the cached span)
+        if (column == null) {
+            column = addColumn(key);
+        }
+        column.fluidBottomY = blockY;
+        column.surfaceY = scanY;
+        column.scannedNanos = nowNanos;
+        return scanY;
+    }
+
+    /**
+     * Forget a column after a block in it changed
+     */
+    public void invalidate(int x, int z) {
+        Column column = getColumn(columnKey(x, z));
+        if (column != null) {
+            removeColumn(column);
+        }
+    }
+
+    public int getCachedColumnCount() {
+        return columnCount;
+    }
+
+    public void clear() {
+        Arrays.fill(buckets, null);
+        columnCount = 0;
+        eldest = null;
+        newest = null;
+    }
+
+    /**
+     * Look up a cached column and mark it most recently used
+     */
+    private Column getColumn(long key) {
+        for (Column column = buckets[bucket(key)]; column != null; column = column.nextInBucket) {
+            if (column.key == key) {
+                unlinkAccess(column);
+                linkNewest(column);
+                return column;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Cache a new column, evicting the least recently used one beyond MAX_COLUMNS
+     */
+    private Column addColumn(long key) {
+        Column column = new Column();
+        column.key = key;
+        int bucket = bucket(key);
+        column.nextInBucket = buckets[bucket];
+        buckets[bucket] = column;
+        linkNewest(column);
+        if (++columnCount > MAX_COLUMNS) {
+            removeColumn(eldest);
+        }
+        return column;
+    }
+
+    private void removeColumn(Column column) {
+        int bucket = bucket(column.key);
+        if (buckets[bucket] == column) {
+            buckets[bucket] = column.nextInBucket;
+        } else {
+            Column previous = buckets[bucket];
+            while (previous.nextInBucket != column) {
+                previous = previous.nextInBucket;
+            }
+            previous.nextInBucket = column.nextInBucket;
+        }
+        column.nextInBucket = null;
+        unlinkAccess(column);
+        columnCount--;
+    }
+
+    private void linkNewest(Column column) {
+        column.older = newest;
+        column.newer = null;
+        if (newest != null) {
+            newest.newer = column;
+        } else {
+            eldest = column;
+        }
+        newest = column;
+    }
+
+    private void unlinkAccess(Column column) {
+        if (column.older != null) {
+            column.older.newer = column.newer;
+        } else {
+            eldest = column.newer;
+        }
+        if (column.newer != null) {
+            column.newer.older = column.older;
+        } else {
+            newest = column.older;
+        }
+        column.older = null;
+        column.newer = null;
+    }
+
+    private static int bucket(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h >>> 32) & (BUCKETS - 1);
+    }
+
+    private static long columnKey(int x, int z) {
+        return ((long) x << 32) | (z & 0xFFFFFFFFL);
+    }
+}
@@ -0,0 +1,372 @@
+package com.underwaterdepth;
+
+import com.hypixel.hytale.server.core.universe.world.World;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+
+/**
+ * Per-world partition of player dive state
+ * Everything except the removal queue is only touched by the owning world's thread,
+ * so no locking is needed on the hot path
+ *
+ * @author BeyondSmash
+ */
+public class WorldDepthState {
+
+    // Wheel size in passes - must exceed the longest evaluation interval
+    private static final int WHEEL_SLOTS = 16;
+
+    // Null for worlds without a server (tests, the simulator)
+    private final World world;
+    private final String name;
+
+    // Depth settings of this world, resolved once on registration (replaced by /wdepth reload)
+    private volatile WorldProfile profile;
+
+    // Dive state for players tracked in this world - the map for lookups, the list
+    // is the candidate index iterated by sweeps (no iterator allocation)
+    private final Map<UUID, DiveState> divers = new HashMap<>();
+    private final ArrayList<DiveState> diverList = new ArrayList<>();
+
+    // Players to drop on the next pass (disconnects arrive on other threads)
+    private final Queue<UUID> pendingRemovals = new ConcurrentLinkedQueue<>();
+
+    // Decides which divers are evaluated on each pass
+    private final TimingWheel wheel = new TimingWheel(WHEEL_SLOTS);
+
+    // Water surface lookups with a per-column cache
+    private final WaterSurfaceFinder surfaceFinder;
+
+    // HUDs with display changes, sent together at the end of the pass
+    private final ArrayList<GaugeHud> pendingHuds = new ArrayList<>();
+
+    // HUDs left queued after the last flush, as counted in DepthMetrics.HUD_FLUSH_BACKLOG
+    private int reportedBacklog = 0;
+
+    // Depth pass timing
+    private boolean started = false;
+    private long nextPassNanos;
+    private long passNumber = 0;
+
+    // Set while a pass runs - a world never has more than one pass in flight
+    private boolean passInFlight = false;
+
+    // Divers with a visible HUD after the last sweep
+    private int visibleHudCount = 0;
+
+    // Whether the server forces the compact HUD profile in this world (too many visible HUDs)
+    private boolean compactForced = false;
+
+    // PlayerConfig change count this world's divers were last checked against
+    private long configChangeCount = -1;
+
+    public WorldDepthState(World world, WorldProfile profile) {
+        this(world, world.getName(), profile, new WorldFluidProbe(world));
+    }
+
+    /**
+     * Partition without a server world - blocks come from the given probe
+     */
+    public WorldDepthState(String name, WorldProfile profile, FluidProbe fluidProbe) {
+        this(null, name, profile, fluidProbe);
+    }
+
+    private WorldDepthState(World world, String name, WorldProfile profile, FluidProbe fluidProbe) {
+        this.world = world;
+        this.name = name;
+        this.profile = profile;
+        this.surfaceFinder = new WaterSurfaceFinder(fluidProbe);
+    }
+
+    public World getWorld() {
+        return world;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Cached depth profile of this world - no name lookup, safe from any thread
+     */
+    public WorldProfile getProfile() {
+        return profile;
+    }
+
+    public void setProfile(WorldProfile profile) {
+        this.profile = profile;
+    }
+
+    /**
+     * Start a depth pass if one is due and none is running
+     * After a stall (e.g. chunk generation) the missed passes are not replayed - they are
+     * coalesced into this one, which also picks up every diver the wheel had due in them
+     *
+     * @return true if a pass should run now (call endPass() when it is done)
+     */
+    public boolean tryStartPass(long nowNanos, long periodNanos) {
+        if (passInFlight || (started && nowNanos - nextPassNanos < 0)) {
+            return false;
+        }
+
+        // How late this pass starts, and how many whole passes were missed
+        int missedPasses = 0;
+        if (started) {
+            long delayNanos = nowNanos - nextPassNanos;
+            DepthMetrics.PASS_DELAY.record(delayNanos);
+            missedPasses = (int) Math.min(delayNanos / periodNanos, wheel.getMaxDelay());
+            if (missedPasses > 0) {
+                DepthMetrics.PASSES_COALESCED.add(delayNanos / periodNanos);
+            }
+        }
+
+        started = true;
+        passInFlight = true;
+        nextPassNanos = nowNanos + periodNanos;
+        passNumber++;
+
+        // Apply removals queued from other threads
+        UUID uuid;
+        while ((uuid = pendingRemovals.poll()) != null) {
+            DiveState removed = divers.get(uuid);
+            if (removed != null) {
+                removeDiver(removed);
+                dequeueHudFlush(removed);
+            }
+        }
+
+        // Mark divers scheduled for this pass (and any missed ones) as due
+        for (int i = 0; i <= missedPasses; i++) {
+            wheel.advance();
+        }
+        return true;
+    }
+
+    /**
+     * Mark the current pass as finished (also after a failed pass)
+     */
+    public void endPass() {
+        passInFlight = false;
+    }
+
+    public long getPassNumber() {
+        return passNumber;
+    }
+
+    public TimingWheel getWheel() {
+        return wheel;
+    }
+
+    public WaterSurfaceFinder getSurfaceFinder() {
+        return surfaceFinder;
+    }
+
+    public DiveState getDiver(UUID uuid) {
+        return divers.get(uuid);
+    }
+
+    public void putDiver(DiveState state) {
+        DiveState previous = divers.put(state.getUuid(), state);
+        if (previous != null) {
+            unlinkDiver(previous);
+        }
+        state.setDiverIndex(diverList.size());
+        diverList.add(state);
+    }
+
+    public int getDiverCount() {
+        return diverList.size();
+    }
+
+    /**
+     * Diver at a position of the candidate index (0 - getDiverCount()-1)
+     */
+    public DiveState getDiverAt(int index) {
+        return diverList.get(index);
+    }
+
+    /**
+     * Note the PlayerConfig change count the divers are checked against
+     *
+     * @return true if it moved since the last call (settings changed somewhere)
+     */
+    public boolean updateConfigChangeCount(long changeCount) {
+        if (changeCount == configChangeCount) {
+            return false;
+        }
+        configChangeCount = changeCount;
+        return true;
+    }
+
+    /**
+     * Stop tracking a diver that is back on dry land (HUD already hidden)
+     * Dry players without state are dropped by the pass prefilter until they get wet again
+     */
+    public void releaseDiver(DiveState state) {
+        if (divers.get(state.getUuid()) == state) {
+            removeDiver(state);
+        }
+    }
+
+    /**
+     * Remove a diver from the lookup map, the candidate index and the wheel
+     */
+    private void removeDiver(DiveState state) {
+        divers.remove(state.getUuid());
+        unlinkDiver(state);
+        wheel.cancel(state);
+    }
+
+    /**
+     * Swap-remove a diver from the candidate index
+     */
+    private void unlinkDiver(DiveState state) {
+        int index = state.getDiverIndex();
+        if (index < 0 || index >= diverList.size() || diverList.get(index) != state) {
+            return;
+        }
+        DiveState last = diverList.remove(diverList.size() - 1);
+        if (last != state) {
+            diverList.set(index, last);
+            last.setDiverIndex(index);
+        }
+        state.setDiverIndex(-1);
+    }
+
+    /**
+     * Queue a HUD with pending changes for the end-of-pass flush
+     */
+    public void queueHudFlush(GaugeHud hud) {
+        if (hud.markFlushQueued()) {
+            pendingHuds.add(hud);
+        }
+    }
+
+    /**
+     * Take a departing diver's HUD out of the flush list, so this world never sends it again
+     * and the next world can queue it
+     */
+    private void dequeueHudFlush(DiveState state) {
+        GaugeHud hud = state.getHud();
+        if (hud != null && hud.takeFlushQueued()) {
+            pendingHuds.remove(hud);
+        }
+    }
+
+    /**
+     * Send queued HUD updates
+     * When not all of them fit, the highest priority ones go first (see GaugeHud.PRIORITY_ORDER);
+     * HUDs beyond the cap stay queued and keep collecting changes for the next pass
+     *
+     * @return Number of HUDs flushed
+     */
+    public int flushHuds(int maxHuds) {
+        int count = Math.min(pendingHuds.size(), maxHuds);
+        if (count > 0 && count < pendingHuds.size()) {
+            pendingHuds.sort(GaugeHud.PRIORITY_ORDER);
+        }
+        int flushed = 0;
+        for (int i = 0; i < count; i++) {
+            GaugeHud hud = pendingHuds.get(i);
+            // Skip HUDs hidden since they were queued, and players whose entity is gone
+            if (hud.takeFlushQueued() && hud.isPlayerValid()) {
+                hud.flushPending();
+                flushed++;
+            }
+        }
+
+        if (count == pendingHuds.size()) {
+            pendingHuds.clear();
+        } else {
+            pendingHuds.subList(0, count).clear();
+        }
+        reportBacklog();
+        return flushed;
+    }
+
+    private void reportBacklog() {
+        DepthMetrics.HUD_FLUSH_BACKLOG.addAndGet(pendingHuds.size() - reportedBacklog);
+        reportedBacklog = pendingHuds.size();
+    }
+
+    public int getPendingHudCount() {
+        return pendingHuds.size();
+    }
+
+    /**
+     * Queue a player for removal - safe to call from any thread
+     */
+    public void queueRemoval(UUID uuid) {
+        pendingRemovals.add(uuid);
+    }
+
+    /**
+     * Remove players that were not seen in the current pass (left this world or the server)
+     *
+     * @param departed Receives each removed dive state
+     */
+    public void sweepDeparted(Consumer<DiveState> departed) {
+        // Walk backwards so swap-removal never skips an entry
+        int visible = 0;
+        for (int i = diverList.size() - 1; i >= 0; i--) {
+            DiveState state = diverList.get(i);
+            if (state.getLastSeenPass() != passNumber) {
+                removeDiver(state);
+                // The HUD goes with the player - a deferred update is flushed by the world they went to
+                dequeueHudFlush(state);
+                state.setEvaluationDue(true);
+                departed.accept(state);
+            } else if (state.getHud() != null) {
+                visible++;
+            }
+        }
+        visibleHudCount = visible;
+    }
+
+    public int getVisibleHudCount() {
+        return visibleHudCount;
+    }
+
+    /**
+     * Force the compact profile once more than threshold HUDs are visible, and release it
+     * again below 80% of the threshold (so the profile doesn't flap at the limit)
+     *
+     * @param threshold Visible HUD count that forces compact (0 = never)
+     * @return Whether compact is forced
+     */
+    public boolean updateCompactForced(int threshold) {
+        if (threshold <= 0) {
+            compactForced = false;
+        } else if (visibleHudCount > threshold) {
+            compactForced = true;
+        } else if (visibleHudCount < threshold * 4 / 5) {
+            compactForced = false;
+        }
+        return compactForced;
+    }
+
+    public boolean isCompactForced() {
+        return compactForced;
+    }
+
+    /**
+     * Drop all tracked players (shutdown)
+     */
+    public void clear() {
+        wheel.clear();
+        surfaceFinder.clear();
+        pendingHuds.clear();
+        reportBacklog();
+        visibleHudCount = 0;
+        compactForced = false;
+        configChangeCount = -1;
+        divers.clear();
+        diverList.clear();
+        pendingRemovals.clear();
+    }
+}
@@ -0,0 +1,43 @@
+package com.underwaterdepth;
+
+import com.hypixel.hytale.math.util.ChunkUtil;
+import com.hypixel.hytale.server.core.universe.world.World;
+import com.hypixel.hytale.server.core.universe.world.chunk.WorldChunk;
+
+/**
+ * FluidProbe backed by a world's loaded chunks
+ * Must be used on the world thread, never loads chunks
+ * Callers check isColumnLoaded before scanning a column
+ *
+ * @author BeyondSmash
+ */
+public class WorldFluidProbe implements FluidProbe {
+
+    // Fluid id of empty (non-fluid) blocks
+    private static final int NO_FLUID = 0;
+
+    private final World world;
+
+    // Chunk looked up by the last isColumnLoaded call - the scan that follows stays in it
+    private long cachedChunkIndex;
+    private WorldChunk cachedChunk;
+
+    public WorldFluidProbe(World world) {
+        this.world = world;
+    }
+
+    @Override
+    public boolean isColumnLoaded(int x, int z) {
+        // Always a fresh lookup, so a chunk unloaded since the last scan is never reused
+        cachedChunkIndex = ChunkUtil.indexChunkFromBlock(x, z);
+        cachedChunk = world.getChunkIfLoaded(cachedChunkIndex);
+        return cachedChunk != null;
+    }
+
+    @Override
+    public boolean isFluid(int x, int y, int z) {
+        long index = ChunkUtil.indexChunkFromBlock(x, z);
+        WorldChunk chunk = index == cachedChunkIndex ? cachedChunk : world.getChunkIfLoaded(index);
+        return chunk != null && chunk.getFluidId(x, y, z) != NO_FLUID;
+    }
+}
@@ -0,0 +1,90 @@
+package com.underwaterdepth;
+
+/**
+ * Depth settings for one world - sea level, gauge range and resolution, update rate and HUD variant
+ *
+ * Built by ServerConfig (world entries in server_config.json, falling back to the server
+ * values) and resolved once per world when it is registered. The result is cached on the
+ * world's WorldDepthState, so the per-player hot path reads plain fields and never looks a
+ * world up by name.
+ *
+ * @author BeyondSmash
+ */
+public final class WorldProfile {
+
+    private final String name;
+    private final int seaLevel;
+    private final int gaugeRange;
+    private final int markerCount;
+    private final long updatePeriodMillis;
+    private final long updatePeriodNanos;
+    private final GaugeLayout gaugeLayout;
+    private final GaugeDisplayTable displayTable;
+
+    WorldProfile(String name, int seaLevel, int gaugeRange, int markerCount, long updatePeriodMillis,
+                 GaugeLayout gaugeLayout, GaugeDisplayTable displayTable) {
+        this.name = name;
+        this.seaLevel = seaLevel;
+        this.gaugeRange = gaugeRange;
+        this.markerCount = markerCount;
+        this.updatePeriodMillis = updatePeriodMillis;
+        this.updatePeriodNanos = updatePeriodMillis * 1_000_000L;
+        this.gaugeLayout = gaugeLayout;
+        this.displayTable = displayTable;
+    }
+
+    /**
+     * World name the profile was configured for (null for the server default profile)
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Water surface level of the world (Y) used for the sea level line
+     */
+    public int getSeaLevel() {
+        return seaLevel;
+    }
+
+    /**
+     * Meters covered by one gauge range
+     */
+    public int getGaugeRange() {
+        return gaugeRange;
+    }
+
+    public int getMarkerCount() {
+        return markerCount;
+    }
+
+    /**
+     * Depth change that moves the marker one position
+     */
+    public float getMarkerStep() {
+        return (float) gaugeRange / (markerCount - 1);
+    }
+
+    public long getUpdatePeriodMillis() {
+        return updatePeriodMillis;
+    }
+
+    public long getUpdatePeriodNanos() {
+        return updatePeriodNanos;
+    }
+
+    /**
+     * Layout for full-size HUDs in this world (COMPACT = every diver gets the compact HUD)
+     */
+    public GaugeLayout getGaugeLayout() {
+        return gaugeLayout;
+    }
+
+    public boolean isCompactOnly() {
+        return gaugeLayout == GaugeLayout.COMPACT;
+    }
+
+    public GaugeDisplayTable getDisplayTable() {
+        return displayTable;
+    }
+}
@@ -0,0 +1,78 @@
+package com.underwaterdepth;
+
+import com.hypixel.hytale.server.core.universe.world.World;
+import com.hypixel.hytale.server.core.universe.world.events.AddWorldEvent;
+import com.hypixel.hytale.server.core.universe.world.events.RemoveWorldEvent;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registry of loaded worlds and their dive state partitions
+ *
+ * Kept up to date by world lifecycle events - a partition is created when a world is added
+ * and dropped when it is removed, so unloaded worlds (instances, temporary dimensions) don't
+ * keep their divers and surface cache alive. Worlds that were already loaded when the plugin
+ * started get their partition on first use. Each partition caches its world's profile,
+ * resolved by name once here (and again on /wdepth reload) instead of on every update.
+ *
+ * @author BeyondSmash
+ */
+public class WorldRegistry {
+
+    private final Map<World, WorldDepthState> worlds = new ConcurrentHashMap<>();
+
+    /**
+     * Get the partition for a world (created on first use)
+     */
+    public WorldDepthState get(World world) {
+        WorldDepthState state = worlds.get(world);
+        return state != null ? state : worlds.computeIfAbsent(world,
+            w -> new WorldDepthState(w, ServerConfig.get().resolveProfile(w.getName())));
+    }
+
+    /**
+     * Re-resolve every world's profile from a newly loaded config
+     */
+    public void refreshProfiles(ServerConfig config) {
+        for (WorldDepthState state : worlds.values()) {
+            state.setProfile(config.resolveProfile(state.getName()));
+        }
+    }
+
+    /**
+     * World loaded - create its partition up front
+     */
+    public void onWorldAdded(AddWorldEvent event) {
+        get(event.getWorld());
+    }
+
+    /**
+     * World unloaded - drop its partition
+     * The world thread is gone, so the state is only unlinked here, not cleared
+     */
+    public void onWorldRemoved(RemoveWorldEvent event) {
+        worlds.remove(event.getWorld());
+    }
+
+    /**
+     * All registered partitions (live view - iterate without copying)
+     */
+    public Collection<WorldDepthState> all() {
+        return worlds.values();
+    }
+
+    public int size() {
+        return worlds.size();
+    }
+
+    /**
+     * Clear every partition and forget all worlds (shutdown)
+     */
+    public void clear() {
+        for (WorldDepthState state : worlds.values()) {
+            state.clear();
+        }
+        worlds.clear();
+    }
+}
@@ -0,0 +1,50 @@
+package com.underwaterdepth;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.underwaterdepth.DepthDiagnostics.Category;
+import java.util.UUID;
+import java.util.logging.Level;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Per-player rate limits of the diagnostic categories
+ *
+ * @author BeyondSmash
+ */
+class DepthDiagnosticsTest {
+
+    @Test
+    void noisyPlayerDoesNotSuppressOtherPlayers() {
+        Level threshold = DepthDiagnostics.getThreshold();
+        DepthDiagnostics.setThreshold(Level.ALL);
+        try {
+            UUID noisy = UUID.randomUUID();
+            UUID quiet = UUID.randomUUID();
+
+            assertTrue(DepthDiagnostics.shouldLog(Category.WATER_STATE, noisy));
+            assertFalse(DepthDiagnostics.shouldLog(Category.WATER_STATE, noisy), "Same player within the interval");
+            assertTrue(DepthDiagnostics.shouldLog(Category.WATER_STATE, quiet));
+            assertTrue(DepthDiagnostics.shouldLog(Category.SEA_LEVEL, noisy), "Other categories have their own limit");
+        } finally {
+            DepthDiagnostics.clear();
+            DepthDiagnostics.setThreshold(threshold);
+        }
+    }
+
+    @Test
+    void disabledCategoryIsOffForUntracedPlayers() {
+        Level threshold = DepthDiagnostics.getThreshold();
+        DepthDiagnostics.setThreshold(Level.INFO);
+        UUID player = UUID.randomUUID();
+        try {
+            assertFalse(DepthDiagnostics.shouldLog(Category.HUD_UPDATE, player));
+            DepthDiagnostics.setTrace(player, true);
+            assertTrue(DepthDiagnostics.shouldLog(Category.HUD_UPDATE, player));
+        } finally {
+            DepthDiagnostics.forgetPlayer(player);
+            DepthDiagnostics.setThreshold(threshold);
+        }
+    }
+}
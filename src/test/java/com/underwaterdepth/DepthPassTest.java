@@ -0,0 +1,401 @@
+package com.underwaterdepth;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Drives DepthPass through a stand-in DiverBatch and HudSink - no server involved
+ *
+ * @author BeyondSmash
+ */
+class DepthPassTest {
+
+    // Water up to Y=100 everywhere - a swimmer at the surface has feet at Y=99
+    private static final int SURFACE_Y = 100;
+
+    private static final FluidProbe OCEAN = new FluidProbe() {
+        @Override
+        public boolean isColumnLoaded(int x, int z) {
+            return true;
+        }
+
+        @Override
+        public boolean isFluid(int x, int y, int z) {
+            return y < SURFACE_Y;
+        }
+    };
+
+    private final WorldProfile profile = ServerConfig.get().getDefaultProfile();
+    private final WorldDepthState world = new WorldDepthState("test", profile, OCEAN);
+
+    // Player handle -> world the player is in (everyone starts in "test")
+    private final Map<String, String> locations = new HashMap<>();
+
+    private final RecordingSink sink = new RecordingSink();
+    private final List<Float> dives = new ArrayList<>();
+    private final DepthPass<String> pass = new DepthPass<>(sink,
+        (uuid, username, maxDepth, durationMillis, worldName) -> dives.add(maxDepth),
+        player -> locations.getOrDefault(player, "test"), new HudUpdateBudget(0));
+
+    private final TestBatch batch = new TestBatch();
+    private long now = 1_000_000_000L;
+
+    @Test
+    void showsHudOnceDeepEnoughAndFlushesAtEndOfPass() {
+        UUID diver = batch.add("diver");
+
+        batch.move(0, 99.8, true);
+        runPass();
+        assertNotNull(world.getDiver(diver));
+        assertNull(world.getDiver(diver).getHud(), "No HUD while bobbing at the surface");
+
+        batch.move(0, 95.0, true);
+        runPass();
+        RecordingHud hud = (RecordingHud) world.getDiver(diver).getHud();
+        assertNotNull(hud);
+        assertEquals(1, sink.shown);
+        assertEquals(4.0f, hud.depth, 0.01f);
+        assertEquals(1, hud.flushes);
+        assertFalse(hud.hasPendingChanges());
+
+        batch.move(0, 90.0, true);
+        runPass();
+        assertEquals(9.0f, hud.depth, 0.01f);
+        assertEquals(2, hud.flushes);
+        assertEquals(1, sink.shown, "HUD is reused while diving");
+    }
+
+    @Test
+    void surfacingHidesHudRecordsDiveAndReleasesDiver() {
+        UUID diver = batch.add("diver");
+
+        batch.move(0, 99.8, true);
+        runPass();
+        batch.move(0, 92.0, true);
+        runPass();
+        assertNotNull(world.getDiver(diver).getHud());
+
+        batch.move(0, 100.5, false);
+        runPass();
+        assertEquals(1, sink.hidden);
+        assertNull(world.getDiver(diver));
+        assertEquals(0, world.getDiverCount());
+        assertEquals(1, dives.size());
+        assertEquals(7.0f, dives.get(0), 0.01f);
+    }
+
+    @Test
+    void bobbingAtTheSurfaceReadsNoDepth() {
+        UUID diver = batch.add("diver");
+
+        batch.move(0, 99.8, true);
+        runPass();
+        batch.move(0, 100.2, true);
+        runPass();
+        batch.move(0, 99.6, true);
+        runPass();
+        assertNull(world.getDiver(diver).getHud());
+        assertEquals(0, sink.shown);
+    }
+
+    @Test
+    void scheduleFollowsTheSurfaceDepthWhenEnteringBelowTheSurface() {
+        UUID diver = batch.add("diver");
+
+        // Dropped into the water 9.66m below the surface, sinking 0.2 m/s - the entry point
+        // is off the surface by a fraction of a display step
+        double y = 89.34;
+        for (int pass = 0; pass < 120; pass++) {
+            batch.move(0, y, true);
+            runPass();
+            RecordingHud hud = (RecordingHud) world.getDiver(diver).getHud();
+            float surfaceDepth = SURFACE_Y - 1 - (float) y;
+            if (pass >= 40) {
+                // Once the speed estimate settles the gauge changes on the pass its tenth does
+                assertEquals(Math.round(surfaceDepth * 10), Math.round(hud.depth * 10),
+                    "Gauge lags the depth at pass " + pass);
+            }
+            y -= 0.02;
+        }
+    }
+
+    @Test
+    void turningTheHudOffHidesItAndReleasesTheDiver() {
+        UUID diver = batch.add("diver");
+
+        batch.move(0, 99.8, true);
+        runPass();
+        batch.move(0, 92.0, true);
+        runPass();
+        assertNotNull(world.getDiver(diver).getHud());
+
+        PlayerConfig.update(diver, c -> c.withEnabled(false));
+        try {
+            runPass();
+            assertEquals(1, sink.hidden);
+            assertNull(world.getDiver(diver));
+
+            batch.move(0, 85.0, true);
+            runPass();
+            assertNull(world.getDiver(diver), "Disabled players are skipped before the state lookup");
+            assertEquals(1, sink.shown);
+        } finally {
+            PlayerConfig.removeConfig(diver);
+        }
+    }
+
+    @Test
+    void diveStateFollowsThePlayerToTheWorldTheyJoined() {
+        WorldDepthState other = new WorldDepthState("other", profile, OCEAN);
+        TestBatch otherBatch = new TestBatch();
+        UUID diver = batch.add("diver");
+
+        batch.move(0, 99.8, true);
+        runPass();
+        batch.move(0, 92.0, true);
+        runPass();
+        DiveState state = world.getDiver(diver);
+        RecordingHud hud = (RecordingHud) state.getHud();
+        assertEquals(1, hud.flushes);
+
+        // One update a second - the world's share starts empty, so the next change stays queued
+        pass.setHudBudget(new HudUpdateBudget(1));
+        batch.move(0, 90.0, true);
+        runPass();
+        assertEquals(1, hud.flushes);
+        assertEquals(1, world.getPendingHudCount());
+
+        // Player changes worlds while diving, with the update still deferred
+        batch.remove(0);
+        otherBatch.add("diver", diver);
+        otherBatch.move(0, 90.0, true);
+        locations.put("diver", "other");
+
+        runPass();
+        assertNull(world.getDiver(diver));
+        assertEquals(0, world.getPendingHudCount(), "Departed HUDs leave the old world's flush list");
+        assertEquals(1, hud.flushes);
+
+        pass.setHudBudget(new HudUpdateBudget(0));
+        runPass(other, otherBatch);
+        assertSame(state, other.getDiver(diver), "Claimed from the handoff, not started over");
+        assertTrue(state.hasEntryY());
+        assertEquals(2, hud.flushes, "The new world sends the deferred update");
+        assertEquals(9.0f, hud.depth, 0.01f);
+    }
+
+    @Test
+    void dryPlayersGetNoDiveState() {
+        UUID walker = batch.add("walker");
+
+        batch.move(0, 120.0, false);
+        runPass();
+        assertNull(world.getDiver(walker));
+        assertEquals(0, sink.shown);
+    }
+
+    private void runPass() {
+        now += profile.getUpdatePeriodNanos();
+        runPass(world, batch);
+    }
+
+    private void runPass(WorldDepthState worldState, TestBatch players) {
+        assertTrue(worldState.tryStartPass(now, profile.getUpdatePeriodNanos()));
+        try {
+            pass.updateDivers(worldState, players, now);
+            pass.finishPass(worldState, now);
+        } finally {
+            worldState.endPass();
+        }
+    }
+
+    /**
+     * Players held in plain lists - the handle is the username
+     */
+    private static final class TestBatch implements DiverBatch<String> {
+
+        private final List<UUID> uuids = new ArrayList<>();
+        private final List<String> names = new ArrayList<>();
+        private final List<double[]> positions = new ArrayList<>();
+        private final List<Boolean> inFluid = new ArrayList<>();
+
+        UUID add(String name) {
+            return add(name, UUID.randomUUID());
+        }
+
+        UUID add(String name, UUID uuid) {
+            uuids.add(uuid);
+            names.add(name);
+            positions.add(new double[] {0.5, 120.0, 0.5});
+            inFluid.add(false);
+            return uuid;
+        }
+
+        void remove(int index) {
+            uuids.remove(index);
+            names.remove(index);
+            positions.remove(index);
+            inFluid.remove(index);
+        }
+
+        void move(int index, double y, boolean fluid) {
+            positions.get(index)[1] = y;
+            inFluid.set(index, fluid);
+        }
+
+        @Override
+        public int size() {
+            return uuids.size();
+        }
+
+        @Override
+        public boolean isInFluid(int index) {
+            return inFluid.get(index);
+        }
+
+        @Override
+        public UUID getUuid(int index) {
+            return uuids.get(index);
+        }
+
+        @Override
+        public String getPlayer(int index) {
+            return names.get(index);
+        }
+
+        @Override
+        public String getUsername(int index) {
+            return names.get(index);
+        }
+
+        @Override
+        public double getX(int index) {
+            return positions.get(index)[0];
+        }
+
+        @Override
+        public double getY(int index) {
+            return positions.get(index)[1];
+        }
+
+        @Override
+        public double getZ(int index) {
+            return positions.get(index)[2];
+        }
+    }
+
+    private static final class RecordingSink implements HudSink<String> {
+
+        int shown;
+        int hidden;
+
+        @Override
+        public GaugeHud show(String player, float depth, float seaLevelDepth, GaugeLayout layout,
+                             GaugeDisplayTable displayTable, PlayerConfig config) {
+            shown++;
+            return new RecordingHud(layout);
+        }
+
+        @Override
+        public void hide(String player, GaugeHud hud) {
+            hidden++;
+        }
+    }
+
+    /**
+     * Keeps the last recorded depth and counts flushes
+     */
+    private static final class RecordingHud implements GaugeHud {
+
+        private final GaugeLayout layout;
+        float depth = Float.NaN;
+        float sentDepth = Float.NaN;
+        float verticalSpeed;
+        int flushes;
+        boolean queued;
+
+        RecordingHud(GaugeLayout layout) {
+            this.layout = layout;
+        }
+
+        @Override
+        public void updateDepth(float depth, float seaLevelDepth, int direction) {
+            this.depth = depth;
+        }
+
+        @Override
+        public int flushPending() {
+            sentDepth = depth;
+            flushes++;
+            return 1;
+        }
+
+        @Override
+        public boolean hasPendingChanges() {
+            return Float.compare(depth, sentDepth) != 0;
+        }
+
+        @Override
+        public GaugeLayout getLayout() {
+            return layout;
+        }
+
+        @Override
+        public void setDisplayTable(GaugeDisplayTable displayTable) {
+        }
+
+        @Override
+        public void setConfig(PlayerConfig config) {
+        }
+
+        @Override
+        public boolean isPlayerValid() {
+            return true;
+        }
+
+        @Override
+        public float getPendingDepthChange() {
+            return Float.isNaN(sentDepth) ? Float.MAX_VALUE : Math.abs(depth - sentDepth);
+        }
+
+        @Override
+        public float getVerticalSpeed() {
+            return verticalSpeed;
+        }
+
+        @Override
+        public void setVerticalSpeed(float verticalSpeed) {
+            this.verticalSpeed = verticalSpeed;
+        }
+
+        @Override
+        public long getLastSentNanos() {
+            return 0;
+        }
+
+        @Override
+        public boolean markFlushQueued() {
+            boolean wasQueued = queued;
+            queued = true;
+            return !wasQueued;
+        }
+
+        @Override
+        public boolean takeFlushQueued() {
+            boolean wasQueued = queued;
+            queued = false;
+            return wasQueued;
+        }
+    }
+}
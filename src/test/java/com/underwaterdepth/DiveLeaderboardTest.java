@@ -0,0 +1,71 @@
+package com.underwaterdepth;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.hypixel.hytale.logger.HytaleLogger;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Leaderboard snapshot loading and the world board cap
+ *
+ * @author BeyondSmash
+ */
+class DiveLeaderboardTest {
+
+    private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
+
+    @Test
+    void corruptSnapshotAsksForARebuild() throws IOException {
+        Path directory = Files.createTempDirectory("leaderboard-test");
+        Path file = directory.resolve(DiveLeaderboard.FILE_NAME);
+        Files.write(file, new byte[] {1, 2, 3});
+
+        DiveLeaderboard board = new DiveLeaderboard(directory, LOGGER);
+        try {
+            assertFalse(board.start(), "Plugin seeds from dive statistics");
+            assertTrue(board.top(DiveLeaderboard.SERVER_BOARD, 10).isEmpty());
+        } finally {
+            board.shutdown();
+            Files.deleteIfExists(file);
+            Files.delete(directory);
+        }
+    }
+
+    @Test
+    void savedSnapshotLoads() throws IOException {
+        Path directory = Files.createTempDirectory("leaderboard-test");
+        UUID uuid = UUID.randomUUID();
+        try {
+            DiveLeaderboard saved = new DiveLeaderboard(directory, LOGGER);
+            saved.recordDive(uuid, "Diver", 42.5f, "ocean", 1000L);
+            saved.saveIfDirty();
+
+            DiveLeaderboard loaded = new DiveLeaderboard(directory, LOGGER);
+            assertTrue(loaded.start());
+            loaded.shutdown();
+            assertEquals(42.5f, loaded.top("ocean", 1).get(0).depth, 0.0f);
+            assertEquals(uuid, loaded.top(DiveLeaderboard.SERVER_BOARD, 1).get(0).uuid);
+        } finally {
+            Files.deleteIfExists(directory.resolve(DiveLeaderboard.FILE_NAME));
+            Files.delete(directory);
+        }
+    }
+
+    @Test
+    void leastRecentlyUsedWorldBoardIsDropped() {
+        DiveLeaderboard board = new DiveLeaderboard(Path.of("."), LOGGER);
+        for (int world = 0; world <= DiveLeaderboard.MAX_WORLD_BOARDS; world++) {
+            board.recordDive(UUID.randomUUID(), null, world, "world" + world, world);
+        }
+
+        assertTrue(board.top("world0", 1).isEmpty());
+        assertEquals(1, board.top("world1", 1).size());
+        assertEquals(DiveLeaderboard.MAX_WORLD_BOARDS + 1, board.top(DiveLeaderboard.SERVER_BOARD, 1000).size());
+    }
+}
@@ -0,0 +1,65 @@
+package com.underwaterdepth;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Locale;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Depth text and marker color from the table against the formatter it replaced
+ *
+ * @author BeyondSmash
+ */
+class GaugeDisplayTableTest {
+
+    private final GaugeDisplayTable table = new GaugeDisplayTable(20, 60);
+
+    @Test
+    void wholeMeterBoundariesMatchTheOldFormatter() {
+        float[] depths = {4.44f, 4.45f, 4.46f, 4.49f, 4.4999f, 4.5f, 4.51f, 4.55f,
+            9.45f, 9.46f, 9.5f, 14.46f, 14.5f, 0.45f, 0.5f, 19.96f, 20.45f, 20.5f};
+        for (float depth : depths) {
+            assertMatchesOldFormatter(depth);
+            assertMatchesOldFormatter(-depth);
+        }
+    }
+
+    @Test
+    void everyCentimeterMatchesTheOldFormatter() {
+        for (int cm = -3000; cm <= 33000; cm++) {
+            assertMatchesOldFormatter(cm / 100f);
+        }
+    }
+
+    @Test
+    void wholeMetersRoundOnceNotTwice() {
+        assertEquals("-4m", table.lookup(4.46f, false).depthText);
+        assertEquals("-5m", table.lookup(4.5f, false).depthText);
+        assertEquals("+4m", table.lookup(-4.46f, false).depthText);
+        assertEquals("-4.5m", table.lookup(4.46f, true).depthText);
+    }
+
+    private void assertMatchesOldFormatter(float depth) {
+        for (boolean decimal : new boolean[] {false, true}) {
+            GaugeDisplayTable.Entry entry = table.lookup(depth, decimal);
+            assertEquals(oldText(depth, decimal), entry.depthText, "text at " + depth + " decimal " + decimal);
+            assertEquals(oldColor(Math.abs(depth), decimal), entry.markerColor, "color at " + depth + " decimal " + decimal);
+        }
+    }
+
+    // DepthHud before the table (String.format with a fixed locale)
+    private static String oldText(float depth, boolean decimal) {
+        float absDepth = Math.abs(depth);
+        String prefix = depth < 0 ? "+" : "-";
+        return decimal ? prefix + String.format(Locale.ROOT, "%.1f", absDepth) + "m" : prefix + Math.round(absDepth) + "m";
+    }
+
+    private static String oldColor(float absDepth, boolean decimal) {
+        if (!decimal) {
+            int wholeDepth = Math.round(absDepth);
+            return wholeDepth % 5 == 0 && wholeDepth > 0 ? "#FFE6B5" : "#ffffff";
+        }
+        float remainder5 = absDepth % 5.0f;
+        return remainder5 < 0.05f || remainder5 > 4.95f ? "#FFE6B5" : "#ffffff";
+    }
+}
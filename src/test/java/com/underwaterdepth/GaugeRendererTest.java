@@ -0,0 +1,82 @@
+package com.underwaterdepth;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Property deltas written by the gauge renderer
+ *
+ * @author BeyondSmash
+ */
+class GaugeRendererTest {
+
+    private final GaugeDisplayTable table = GaugeDisplayTable.getInstance();
+
+    @Test
+    void unchangedDepthSendsNothing() {
+        GaugeRenderer gauge = new GaugeRenderer(GaugeLayout.SINGLE_MARKER);
+        gauge.renderAll(table, 4.2f, 10.2f, true, true);
+        flush(gauge);
+
+        gauge.render(table, 4.2f, 10.2f, 0, true, true, false);
+        assertFalse(gauge.hasChanges());
+    }
+
+    @Test
+    void smallDepthChangeOnlySendsTheMarker() {
+        GaugeRenderer gauge = new GaugeRenderer(GaugeLayout.SINGLE_MARKER);
+        gauge.renderAll(table, 4.2f, 10.2f, true, false);
+        flush(gauge);
+
+        gauge.render(table, 4.5f, 10.5f, 0, true, false, false);
+        Map<String, String> sent = flush(gauge);
+        assertEquals("-4.5m", sent.get("#Marker.Text"));
+        assertTrue(sent.keySet().stream().allMatch(selector -> selector.startsWith("#Marker.")), "Sent " + sent.keySet());
+    }
+
+    @Test
+    void legacyMarkerMoveTouchesOnlyTheOldAndNewMarker() {
+        GaugeRenderer gauge = new GaugeRenderer(GaugeLayout.LEGACY);
+        gauge.renderAll(table, 2.0f, 8.0f, false, false);
+        Map<String, String> initial = flush(gauge);
+        assertTrue(initial.size() > 60, "Initial build writes every marker");
+
+        GaugeDisplayTable.Entry before = table.lookup(2.0f, false);
+        GaugeDisplayTable.Entry after = table.lookup(9.0f, false);
+        gauge.render(table, 9.0f, 15.0f, 1, false, false, false);
+        Map<String, String> sent = flush(gauge);
+
+        assertEquals("", sent.get("#Marker" + before.markerIndex + ".Text"));
+        assertEquals("-9m", sent.get("#Marker" + after.markerIndex + ".Text"));
+        assertEquals("v", sent.get("#DirectionIcon.Text"));
+        assertEquals(2, sent.keySet().stream().filter(selector -> selector.endsWith(".Text") && selector.startsWith("#Marker")).count());
+    }
+
+    @Test
+    void failedSendReSendsTheWholeHud() {
+        GaugeRenderer gauge = new GaugeRenderer(GaugeLayout.LEGACY);
+        gauge.renderAll(table, 2.0f, 8.0f, true, true);
+        flush(gauge);
+
+        // This update is written to the builder, but the send fails
+        gauge.render(table, 2.3f, 8.3f, 1, true, true, false);
+        flush(gauge);
+        gauge.renderAll(table, 2.3f, 8.3f, true, true);
+
+        // Everything goes out again - the same properties as a fresh HUD at that depth
+        GaugeRenderer fresh = new GaugeRenderer(GaugeLayout.LEGACY);
+        fresh.renderAll(table, 2.3f, 8.3f, true, true);
+        assertEquals(flush(fresh), flush(gauge));
+    }
+
+    private static Map<String, String> flush(GaugeRenderer gauge) {
+        Map<String, String> writes = new LinkedHashMap<>();
+        gauge.flush((selector, value) -> writes.put(selector, value));
+        return writes;
+    }
+}
@@ -0,0 +1,65 @@
+package com.underwaterdepth;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Dirty-slot tracking of the HUD shadow copy
+ *
+ * @author BeyondSmash
+ */
+class HudPropertyStateTest {
+
+    private final HudPropertyState state = new HudPropertyState(new String[] {"#A.Text", "#B.Text", "#C.Anchor.Top"});
+
+    @Test
+    void onlyChangedSlotsAreSentInTheOrderTheyFirstChanged() {
+        state.set(1, "b");
+        state.set(0, "a");
+        state.set(1, "b2");
+        state.setInt(2, 40);
+
+        assertEquals(3, state.getPendingCount());
+        assertEquals(List.of("#B.Text=b2", "#A.Text=a", "#C.Anchor.Top=40"), flush());
+        assertFalse(state.hasChanges());
+    }
+
+    @Test
+    void writingWhatTheClientHasIsDropped() {
+        state.set(0, "a");
+        state.setInt(2, 40);
+        flush();
+
+        state.set(0, new String("a"));
+        state.setInt(2, 40);
+        assertFalse(state.hasChanges());
+
+        state.setInt(2, 41);
+        assertEquals(List.of("#C.Anchor.Top=41"), flush());
+    }
+
+    @Test
+    void resetSendsEveryPropertyAgain() {
+        state.set(0, "a");
+        state.set(1, "b");
+        flush();
+
+        state.reset();
+        state.set(0, "a");
+        state.set(1, "b");
+        assertTrue(state.hasChanges());
+        assertEquals(List.of("#A.Text=a", "#B.Text=b"), flush());
+    }
+
+    private List<String> flush() {
+        List<String> writes = new ArrayList<>();
+        int written = state.flush((selector, value) -> writes.add(selector + "=" + value));
+        assertEquals(writes.size(), written);
+        return writes;
+    }
+}
@@ -0,0 +1,52 @@
+package com.underwaterdepth;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Sharing the server-wide HUD budget between worlds
+ *
+ * @author BeyondSmash
+ */
+class HudUpdateBudgetTest {
+
+    private static final long PASS_NANOS = 100_000_000L;
+
+    @Test
+    void worldThatTicksFirstDoesNotStarveTheOthers() {
+        HudUpdateBudget budget = new HudUpdateBudget(100);
+        int busySent = 0;
+        int quietSent = 0;
+
+        // 10 seconds of passes, the busy world always first
+        for (int pass = 0; pass < 100; pass++) {
+            long now = pass * PASS_NANOS;
+            busySent += budget.acquire("busy", 90, now);
+            quietSent += budget.acquire("quiet", 10, now);
+        }
+
+        assertTrue(busySent + quietSent <= 1000, "Server-wide rate still holds");
+        assertTrue(quietSent >= 80, "Quiet world gets its share, got " + quietSent);
+        assertTrue(busySent >= 800, "Busy world gets its share, got " + busySent);
+    }
+
+    @Test
+    void idleWorldsGiveUpTheirShare() {
+        HudUpdateBudget budget = new HudUpdateBudget(100);
+        int sent = 0;
+        for (int pass = 0; pass < 100; pass++) {
+            long now = pass * PASS_NANOS;
+            budget.acquire("empty", 0, now);
+            sent += budget.acquire("busy", 50, now);
+        }
+        assertTrue(sent >= 980, "Whole rate goes to the only world with a backlog, got " + sent);
+    }
+
+    @Test
+    void unlimitedGrantsEverything() {
+        HudUpdateBudget budget = new HudUpdateBudget(0);
+        assertEquals(500, budget.acquire("world", 500, 0));
+    }
+}
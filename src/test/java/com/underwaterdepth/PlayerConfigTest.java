@@ -0,0 +1,105 @@
+package com.underwaterdepth;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Snapshot lookups and the JSON form of PlayerConfig
+ *
+ * @author BeyondSmash
+ */
+class PlayerConfigTest {
+
+    // Same Gson setup as the plugin
+    private final Gson gson = new GsonBuilder().setPrettyPrinting().create();
+
+    @Test
+    void lookupAfterRemoveDoesNotBringThePlayerBack() {
+        UUID uuid = UUID.randomUUID();
+        int loaded = PlayerConfig.getLoadedCount();
+
+        PlayerConfig.update(uuid, c -> c.withDecimalEnabled(false));
+        PlayerConfig.removeConfig(uuid);
+
+        assertTrue(PlayerConfig.getConfig(uuid).isDefault());
+        assertEquals(loaded, PlayerConfig.getLoadedCount());
+    }
+
+    @Test
+    void changesBeforeTheLoadFinishesAreAppliedOnTopOfTheLoadedConfig() {
+        UUID uuid = UUID.randomUUID();
+        PlayerConfig stored = new PlayerConfig().withSeaLevelDisplayEnabled(false).withOpacity(40);
+
+        PlayerConfig.beginLoad(uuid);
+        try {
+            PlayerConfig.update(uuid, c -> c.withDecimalEnabled(false));
+            assertTrue(PlayerConfig.isLoading(uuid));
+
+            assertTrue(PlayerConfig.putLoadedConfig(uuid, stored), "Merged config still needs saving");
+            PlayerConfig config = PlayerConfig.getConfig(uuid);
+            assertFalse(config.isDecimalEnabled());
+            assertFalse(config.isSeaLevelDisplayEnabled());
+            assertEquals(40, config.getOpacity());
+            assertFalse(PlayerConfig.isLoading(uuid));
+        } finally {
+            PlayerConfig.removeConfig(uuid);
+        }
+    }
+
+    @Test
+    void loadWithoutChangesInstallsTheStoredConfig() {
+        UUID uuid = UUID.randomUUID();
+        PlayerConfig.beginLoad(uuid);
+        try {
+            assertFalse(PlayerConfig.putLoadedConfig(uuid, new PlayerConfig().withOpacity(40)));
+            assertEquals(40, PlayerConfig.getConfig(uuid).getOpacity());
+        } finally {
+            PlayerConfig.removeConfig(uuid);
+        }
+    }
+
+    @Test
+    void changesKeptWhenNothingWasStored() {
+        UUID uuid = UUID.randomUUID();
+        PlayerConfig.beginLoad(uuid);
+        try {
+            PlayerConfig.update(uuid, c -> c.withCompactEnabled(true));
+            assertTrue(PlayerConfig.endLoad(uuid));
+            assertTrue(PlayerConfig.getConfig(uuid).isCompactEnabled());
+        } finally {
+            PlayerConfig.removeConfig(uuid);
+        }
+    }
+
+    @Test
+    void changesBuildNewSnapshots() {
+        PlayerConfig config = new PlayerConfig();
+        PlayerConfig changed = config.withOpacity(150).withCompactEnabled(true);
+
+        assertTrue(config.isDefault());
+        assertEquals(100, changed.getOpacity());
+        assertTrue(changed.isCompactEnabled());
+        assertNotEquals(config.getVersion(), changed.getVersion());
+    }
+
+    @Test
+    void jsonRoundTripKeepsSettingsAndDefaultsMissingOnes() {
+        PlayerConfig saved = new PlayerConfig().withSeaLevelDisplayEnabled(false).withOpacity(40);
+        PlayerConfig loaded = gson.fromJson(gson.toJson(saved), PlayerConfig.class);
+
+        assertFalse(loaded.isSeaLevelDisplayEnabled());
+        assertEquals(40, loaded.getOpacity());
+        assertNotEquals(saved.getVersion(), loaded.getVersion());
+
+        PlayerConfig partial = gson.fromJson("{\"opacity\": 250, \"unknown\": [1]}", PlayerConfig.class);
+        assertEquals(100, partial.getOpacity());
+        assertTrue(partial.isDecimalEnabled());
+    }
+}